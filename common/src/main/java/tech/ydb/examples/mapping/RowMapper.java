@@ -0,0 +1,298 @@
+package tech.ydb.examples.mapping;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+
+import tech.ydb.table.result.ResultSetReader;
+import tech.ydb.table.result.ValueReader;
+import tech.ydb.table.values.PrimitiveType;
+import tech.ydb.table.values.Type;
+
+/**
+ * Maps rows of result sets to objects created by a public constructor of the model class. Columns are passed to
+ * the constructor in the order they are declared in the builder.
+ * <p>
+ * For every schema of result set the mapper builds a method handle once: columns are found by name and bound to
+ * their typed readers, nullable columns of reference types become {@code null}. So the mapping is declared once
+ * instead of hand-written loops of getters by column index, and columns may come in any order. It doesn't make
+ * reading cheaper, mapping a page of series costs about the same as such a loop (see {@code RowMapperBenchmark} of
+ * secondary_index).
+ * <p>
+ * A primitive parameter can't hold {@code null}, so mapping a row with NULL in a nullable column read as a
+ * primitive throws {@link IllegalStateException} with the name of the column. Use a converter to a reference type
+ * for columns which may be NULL.
+ *
+ * <pre>{@code
+ *   RowMapper<Series> mapper = RowMapper.builder(Series.class)
+ *           .column("series_id")
+ *           .column("title")
+ *           .column("release_date", LocalDate::ofEpochDay)
+ *           .build();
+ *   List<Series> series = mapper.mapAll(resultSet);
+ * }</pre>
+ *
+ * @param <T> type of model class
+ */
+public final class RowMapper<T> {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
+    private static final Map<PrimitiveType, String> GETTERS = new HashMap<>();
+
+    private static final MethodHandle GET_COLUMN;
+    private static final MethodHandle IS_PRESENT;
+    private static final MethodHandle LONG_FUNCTION;
+    private static final MethodHandle FUNCTION;
+    private static final MethodHandle NULL_COLUMN;
+
+    static {
+        GETTERS.put(PrimitiveType.Bool, "getBool");
+        GETTERS.put(PrimitiveType.Int8, "getInt8");
+        GETTERS.put(PrimitiveType.Uint8, "getUint8");
+        GETTERS.put(PrimitiveType.Int16, "getInt16");
+        GETTERS.put(PrimitiveType.Uint16, "getUint16");
+        GETTERS.put(PrimitiveType.Int32, "getInt32");
+        GETTERS.put(PrimitiveType.Uint32, "getUint32");
+        GETTERS.put(PrimitiveType.Int64, "getInt64");
+        GETTERS.put(PrimitiveType.Uint64, "getUint64");
+        GETTERS.put(PrimitiveType.Float, "getFloat");
+        GETTERS.put(PrimitiveType.Double, "getDouble");
+        GETTERS.put(PrimitiveType.Bytes, "getBytes");
+        GETTERS.put(PrimitiveType.Text, "getText");
+        GETTERS.put(PrimitiveType.Yson, "getYson");
+        GETTERS.put(PrimitiveType.Json, "getJson");
+        GETTERS.put(PrimitiveType.JsonDocument, "getJsonDocument");
+        GETTERS.put(PrimitiveType.Uuid, "getUuid");
+        GETTERS.put(PrimitiveType.Date, "getDate");
+        GETTERS.put(PrimitiveType.Datetime, "getDatetime");
+        GETTERS.put(PrimitiveType.Timestamp, "getTimestamp");
+        GETTERS.put(PrimitiveType.Interval, "getInterval");
+
+        try {
+            GET_COLUMN = LOOKUP.findVirtual(ResultSetReader.class, "getColumn",
+                    MethodType.methodType(ValueReader.class, int.class));
+            IS_PRESENT = LOOKUP.findVirtual(ValueReader.class, "isOptionalItemPresent",
+                    MethodType.methodType(boolean.class));
+            LONG_FUNCTION = LOOKUP.findVirtual(LongFunction.class, "apply",
+                    MethodType.methodType(Object.class, long.class));
+            FUNCTION = LOOKUP.findVirtual(Function.class, "apply",
+                    MethodType.methodType(Object.class, Object.class));
+            NULL_COLUMN = MethodHandles.lookup().findStatic(RowMapper.class, "nullColumn",
+                    MethodType.methodType(IllegalStateException.class, String.class, String.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static final class Column {
+        private final String name;
+        /** LongFunction or Function applied to the column value, may be null */
+        private final Object converter;
+
+        private Column(String name, Object converter) {
+            this.name = name;
+            this.converter = converter;
+        }
+    }
+
+    /**
+     * Mapper bound to one result set
+     */
+    public final class Bound {
+        private final ResultSetReader resultSet;
+        private final MethodHandle handle;
+
+        private Bound(ResultSetReader resultSet, MethodHandle handle) {
+            this.resultSet = resultSet;
+            this.handle = handle;
+        }
+
+        /**
+         * Creates object from the current row of the result set
+         */
+        @SuppressWarnings("unchecked")
+        public T map() {
+            try {
+                return (T) (Object) handle.invokeExact(resultSet);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable th) {
+                throw new IllegalStateException("Can't map row to " + type.getName(), th);
+            }
+        }
+    }
+
+    private final Class<T> type;
+    private final List<Column> columns;
+    private final MethodHandle constructor;
+    private final Map<String, MethodHandle> handlesBySchema = new ConcurrentHashMap<>();
+
+    private RowMapper(Class<T> type, List<Column> columns) {
+        this.type = type;
+        this.columns = columns;
+        this.constructor = findConstructor(type, columns.size());
+    }
+
+    public static <T> Builder<T> builder(Class<T> type) {
+        return new Builder<>(type);
+    }
+
+    public Bound bind(ResultSetReader resultSet) {
+        return new Bound(resultSet, handlesBySchema.computeIfAbsent(schemaKey(resultSet), key -> build(resultSet)));
+    }
+
+    /**
+     * Maps all remaining rows of the result set
+     */
+    public List<T> mapAll(ResultSetReader resultSet) {
+        Bound bound = bind(resultSet);
+        List<T> result = new ArrayList<>(resultSet.getRowCount());
+        while (resultSet.next()) {
+            result.add(bound.map());
+        }
+        return result;
+    }
+
+    private static String schemaKey(ResultSetReader resultSet) {
+        StringBuilder key = new StringBuilder();
+        for (int idx = 0; idx < resultSet.getColumnCount(); idx++) {
+            key.append(resultSet.getColumnName(idx)).append(':').append(resultSet.getColumnType(idx)).append(';');
+        }
+        return key.toString();
+    }
+
+    /**
+     * Builds (ResultSetReader)Object handle which calls the constructor with values of all columns
+     */
+    private MethodHandle build(ResultSetReader resultSet) {
+        MethodType ctorType = constructor.type();
+        MethodHandle[] readers = new MethodHandle[columns.size()];
+        for (int idx = 0; idx < readers.length; idx++) {
+            readers[idx] = columnReader(resultSet, columns.get(idx), ctorType.parameterType(idx));
+        }
+
+        // (ResultSetReader, ..., ResultSetReader)T -> (ResultSetReader)T
+        MethodHandle handle = MethodHandles.filterArguments(constructor, 0, readers);
+        handle = MethodHandles.permuteArguments(handle,
+                MethodType.methodType(ctorType.returnType(), ResultSetReader.class), new int[readers.length]);
+        return handle.asType(MethodType.methodType(Object.class, ResultSetReader.class));
+    }
+
+    private MethodHandle columnReader(ResultSetReader resultSet, Column column, Class<?> parameterType) {
+        int index = resultSet.getColumnIndex(column.name);
+        if (index < 0) {
+            throw new IllegalArgumentException("Result set has no column " + column.name);
+        }
+
+        Type columnType = resultSet.getColumnType(index);
+        boolean optional = columnType.getKind() == Type.Kind.OPTIONAL;
+        Type itemType = optional ? columnType.unwrapOptional() : columnType;
+        String getter = itemType instanceof PrimitiveType ? GETTERS.get((PrimitiveType) itemType) : null;
+        if (getter == null) {
+            throw new IllegalArgumentException("Column " + column.name + " has unsupported type " + columnType);
+        }
+
+        MethodHandle value;
+        try {
+            Class<?> valueType = ValueReader.class.getMethod(getter).getReturnType();
+            value = LOOKUP.findVirtual(ValueReader.class, getter, MethodType.methodType(valueType));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Can't find reader of column " + column.name, e);
+        }
+
+        if (column.converter instanceof LongFunction) {
+            value = MethodHandles.filterReturnValue(
+                    value.asType(MethodType.methodType(long.class, ValueReader.class)),
+                    LONG_FUNCTION.bindTo(column.converter));
+        } else if (column.converter instanceof Function) {
+            value = MethodHandles.filterReturnValue(
+                    value.asType(MethodType.methodType(Object.class, ValueReader.class)),
+                    FUNCTION.bindTo(column.converter));
+        }
+
+        Class<?> resultType = value.type().returnType();
+        if (optional) {
+            // NULL of nullable column is passed as null, primitive parameters can't hold it
+            MethodHandle empty = resultType.isPrimitive()
+                    ? MethodHandles.filterReturnValue(
+                            MethodHandles.insertArguments(NULL_COLUMN, 0, column.name, resultType.getName()),
+                            MethodHandles.throwException(resultType, IllegalStateException.class))
+                    : MethodHandles.constant(resultType, null);
+            value = MethodHandles.guardWithTest(IS_PRESENT, value,
+                    MethodHandles.dropArguments(empty, 0, ValueReader.class));
+        }
+
+        // (ResultSetReader)ValueReader of the resolved column index
+        MethodHandle columnHandle = MethodHandles.insertArguments(GET_COLUMN, 1, index);
+        MethodHandle reader = MethodHandles.filterReturnValue(columnHandle, value);
+        try {
+            // allows narrowing of primitives, e.g. Uint32 column to int parameter
+            return MethodHandles.explicitCastArguments(reader,
+                    MethodType.methodType(parameterType, ResultSetReader.class));
+        } catch (ClassCastException | IllegalArgumentException | WrongMethodTypeException e) {
+            throw new IllegalArgumentException("Column " + column.name + " of type " + columnType
+                    + " can't be passed as " + parameterType.getName(), e);
+        }
+    }
+
+    private static IllegalStateException nullColumn(String column, String type) {
+        return new IllegalStateException("Column " + column + " is NULL and can't be passed as " + type);
+    }
+
+    private static <T> MethodHandle findConstructor(Class<T> type, int parametersCount) {
+        for (Constructor<?> ctor : type.getConstructors()) {
+            if (ctor.getParameterCount() == parametersCount) {
+                try {
+                    return LOOKUP.unreflectConstructor(ctor);
+                } catch (IllegalAccessException e) {
+                    throw new IllegalArgumentException("Constructor of " + type.getName() + " is not accessible", e);
+                }
+            }
+        }
+        throw new IllegalArgumentException(type.getName() + " has no public constructor with "
+                + parametersCount + " parameters");
+    }
+
+    public static final class Builder<T> {
+        private final Class<T> type;
+        private final List<Column> columns = new ArrayList<>();
+
+        private Builder(Class<T> type) {
+            this.type = type;
+        }
+
+        public Builder<T> column(String name) {
+            columns.add(new Column(name, null));
+            return this;
+        }
+
+        /**
+         * Column of integer type converted before passing to constructor
+         */
+        public Builder<T> column(String name, LongFunction<?> converter) {
+            columns.add(new Column(name, converter));
+            return this;
+        }
+
+        /**
+         * Column of reference type converted before passing to constructor
+         */
+        public <V> Builder<T> columnAs(String name, Function<V, ?> converter) {
+            columns.add(new Column(name, converter));
+            return this;
+        }
+
+        public RowMapper<T> build() {
+            return new RowMapper<>(type, Collections.unmodifiableList(new ArrayList<>(columns)));
+        }
+    }
+}
@@ -0,0 +1,637 @@
+package tech.ydb.examples.paging;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import tech.ydb.core.Result;
+import tech.ydb.core.Status;
+import tech.ydb.examples.mapping.RowMapper;
+import tech.ydb.table.Session;
+import tech.ydb.table.SessionRetryContext;
+import tech.ydb.table.description.KeyBound;
+import tech.ydb.table.description.KeyRange;
+import tech.ydb.table.description.TableColumn;
+import tech.ydb.table.description.TableDescription;
+import tech.ydb.table.query.DataQueryResult;
+import tech.ydb.table.query.Params;
+import tech.ydb.table.result.ResultSetReader;
+import tech.ydb.table.settings.CommitTxSettings;
+import tech.ydb.table.settings.RollbackTxSettings;
+import tech.ydb.table.transaction.TxControl;
+import tech.ydb.table.values.OptionalValue;
+import tech.ydb.table.values.PrimitiveValue;
+import tech.ydb.table.values.TupleValue;
+import tech.ydb.table.values.Type;
+import tech.ydb.table.values.Value;
+
+/**
+ * Reads a table page by page in order of primary key. Every page is a query
+ * {@code WHERE k1 > $k1 OR (k1 = $k1 AND k2 > $k2) ... ORDER BY k1, ..., kN LIMIT $limit} built from the primary
+ * key of the table description, the key of the last row of a page is the start of the next one. NULL is the least
+ * value in the key order, so NULL parts of the last key are compared with {@code IS NULL} and {@code IS NOT NULL}.
+ * Pages are at most 1000 rows, the limit of rows returned by a data query.
+ * <p>
+ * Iterators prefetch pages: the next page is requested as soon as the current one is returned, so it's read while
+ * the caller processes the current page. Every page is a separate read-only transaction.
+ * <p>
+ * {@link #forEachPageInSnapshot(Consumer)} reads partitions of the table in parallel inside one snapshot
+ * transaction, so all pages see the table at the same point in time.
+ *
+ * <pre>{@code
+ *   KeysetPaginator<School> paginator = KeysetPaginator.builder(retryCtx, path + "/schools", description, mapper)
+ *           .pageSize(100)
+ *           .build();
+ *   for (List<School> page : paginator) {
+ *       ...
+ *   }
+ * }</pre>
+ *
+ * @param <T> type of rows
+ */
+public final class KeysetPaginator<T> implements Iterable<List<T>> {
+    /** Data query results are truncated to 1000 rows */
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int DEFAULT_PAGE_SIZE = MAX_PAGE_SIZE;
+    private static final int DEFAULT_PARALLELISM = 16;
+
+    private static final class Page<T> {
+        private final List<T> rows;
+        /** Values of primary key columns of the last row, null for an empty page */
+        private final Value<?>[] lastKey;
+
+        private Page(List<T> rows, Value<?>[] lastKey) {
+            this.rows = rows;
+            this.lastKey = lastKey;
+        }
+    }
+
+    /**
+     * Part of the key space read by the snapshot walk, bounds are values of key columns or null if unbounded
+     */
+    private static final class RangeCursor {
+        private final Value<?>[] from;
+        private final boolean fromInclusive;
+        private final Value<?>[] to;
+        private final boolean toInclusive;
+
+        private RangeCursor(Value<?>[] from, boolean fromInclusive, Value<?>[] to, boolean toInclusive) {
+            this.from = from;
+            this.fromInclusive = fromInclusive;
+            this.to = to;
+            this.toInclusive = toInclusive;
+        }
+
+        private RangeCursor after(Value<?>[] lastKey) {
+            return new RangeCursor(lastKey, false, to, toInclusive);
+        }
+    }
+
+    private static final class Round<T> {
+        private final List<List<T>> pages;
+        /** Ranges with rows left after this round */
+        private final List<RangeCursor> next;
+
+        private Round(List<List<T>> pages, List<RangeCursor> next) {
+            this.pages = pages;
+            this.next = next;
+        }
+    }
+
+    private final SessionRetryContext retryCtx;
+    private final String tablePath;
+    private final RowMapper<T> mapper;
+    private final int pageSize;
+    private final TxControl<?> txControl;
+    private final int parallelism;
+    private final List<String> keyColumns;
+    private final Type[] keyTypes;
+    private final List<String> columns;
+    private final List<KeyRange> keyRanges;
+    private final String firstPageQuery;
+    /** Next page queries by mask of NULL parts of the last key */
+    private final Map<Long, String> nextPageQueries = new ConcurrentHashMap<>();
+
+    private KeysetPaginator(Builder<T> builder) {
+        this.retryCtx = builder.retryCtx;
+        this.tablePath = builder.tablePath;
+        this.mapper = builder.mapper;
+        this.pageSize = builder.pageSize;
+        this.txControl = builder.txControl;
+        this.parallelism = builder.parallelism;
+
+        TableDescription description = builder.description;
+        this.keyColumns = description.getPrimaryKeys();
+        if (keyColumns.isEmpty()) {
+            throw new IllegalArgumentException("Table " + builder.tablePath + " has no primary key");
+        }
+
+        Map<String, Type> columnTypes = new HashMap<>();
+        this.columns = new ArrayList<>();
+        for (TableColumn column : description.getColumns()) {
+            columnTypes.put(column.getName(), column.getType());
+            columns.add(column.getName());
+        }
+        this.keyTypes = new Type[keyColumns.size()];
+        for (int idx = 0; idx < keyTypes.length; idx++) {
+            keyTypes[idx] = columnTypes.get(keyColumns.get(idx));
+            if (keyTypes[idx] == null) {
+                throw new IllegalArgumentException("Table description has no key column " + keyColumns.get(idx));
+            }
+        }
+
+        List<KeyRange> ranges = description.getKeyRanges();
+        this.keyRanges = ranges != null ? ranges : Collections.emptyList();
+
+        this.firstPageQuery = pageQuery(null);
+    }
+
+    public static <T> Builder<T> builder(SessionRetryContext retryCtx, String tablePath, TableDescription description,
+            RowMapper<T> mapper) {
+        return new Builder<>(retryCtx, tablePath, description, mapper);
+    }
+
+    /**
+     * Walks the whole table, the first page is requested immediately
+     */
+    @Override
+    public Iterator<List<T>> iterator() {
+        return new PageIterator(fetch(null));
+    }
+
+    @Override
+    public Spliterator<List<T>> spliterator() {
+        return Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED | Spliterator.NONNULL);
+    }
+
+    public Stream<List<T>> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Reads the whole table in one snapshot read-only transaction. The key space is split into at most
+     * {@code parallelism} ranges of adjacent partitions taken from the key ranges of the table description, which
+     * must be described with {@code setIncludeShardKeyBounds(true)}. Every round is one query with a select of the
+     * next page of every range which still has rows, so the ranges are read in parallel, and the next round is
+     * read while pages of the current one are passed to the consumer.
+     * <p>
+     * Pages are ordered by key within a range, pages of different ranges are interleaved. The consumer is called
+     * sequentially. A transient error before the first page is retried from the start, an error after it fails the
+     * walk, as it can't be resumed in the same snapshot. The transaction of a failed walk is rolled back.
+     *
+     * @param consumer called with every non-empty page
+     * @return count of read rows
+     */
+    public CompletableFuture<Long> forEachPageInSnapshot(Consumer<List<T>> consumer) {
+        AtomicBoolean delivered = new AtomicBoolean();
+        AtomicLong rows = new AtomicLong();
+        return retryCtx.supplyStatus(session -> new SnapshotWalk(session, consumer, delivered, rows).start())
+                .thenApply(status -> {
+                    status.expectSuccess("snapshot read of " + tablePath + " failed");
+                    return rows.get();
+                });
+    }
+
+    String firstPageQuery() {
+        return firstPageQuery;
+    }
+
+    String nextPageQuery() {
+        return nextPageQuery(0);
+    }
+
+    private String nextPageQuery(long nullMask) {
+        return nextPageQueries.computeIfAbsent(nullMask, mask -> {
+            String[] names = new String[keyTypes.length];
+            for (int idx = 0; idx < names.length; idx++) {
+                names[idx] = (mask & (1L << idx)) != 0 ? null : "$k" + idx;
+            }
+            return pageQuery(names);
+        });
+    }
+
+    String firstRoundQuery(Params params) {
+        return rangesQuery(rangeCursors(), params);
+    }
+
+    /**
+     * Splits partitions of the table into at most {@code parallelism} ranges of adjacent partitions
+     */
+    private List<RangeCursor> rangeCursors() {
+        if (keyRanges.isEmpty()) {
+            return Collections.singletonList(new RangeCursor(null, true, null, false));
+        }
+
+        int count = Math.min(parallelism, keyRanges.size());
+        List<RangeCursor> cursors = new ArrayList<>(count);
+        for (int idx = 0; idx < count; idx++) {
+            KeyRange first = keyRanges.get(idx * keyRanges.size() / count);
+            KeyRange last = keyRanges.get((idx + 1) * keyRanges.size() / count - 1);
+
+            Value<?>[] from = first.getFrom().map(KeyBound::getValue).map(this::boundKey).orElse(null);
+            Value<?>[] to = last.getTo().map(KeyBound::getValue).map(this::boundKey).orElse(null);
+            boolean fromInclusive = first.getFrom().map(KeyBound::isInclusive).orElse(true);
+            boolean toInclusive = last.getTo().map(KeyBound::isInclusive).orElse(false);
+            cursors.add(new RangeCursor(from, fromInclusive, to, toInclusive));
+        }
+        return cursors;
+    }
+
+    /**
+     * Values of a partition bound, which may be shorter than the key, null if it bounds nothing
+     */
+    private Value<?>[] boundKey(Value<?> bound) {
+        TupleValue tuple = (TupleValue) bound;
+        int size = Math.min(tuple.size(), keyTypes.length);
+        if (size == 0) {
+            return null;
+        }
+
+        Value<?>[] key = new Value<?>[size];
+        for (int idx = 0; idx < size; idx++) {
+            key[idx] = keyValue(idx, tuple.get(idx));
+        }
+        return key;
+    }
+
+    /**
+     * Query with a select of the next page of every range
+     */
+    private String rangesQuery(List<RangeCursor> cursors, Params params) {
+        StringBuilder declares = new StringBuilder("DECLARE $limit AS Uint64;\n");
+        StringBuilder selects = new StringBuilder();
+        params.put("$limit", PrimitiveValue.newUint64(pageSize));
+
+        for (int idx = 0; idx < cursors.size(); idx++) {
+            RangeCursor cursor = cursors.get(idx);
+            List<List<String>> predicates = new ArrayList<>(2);
+            if (cursor.from != null) {
+                String[] names = bindKey("$r" + idx + "_from", cursor.from, declares, params);
+                predicates.add(compareKey(names, true, cursor.fromInclusive));
+            }
+            if (cursor.to != null) {
+                String[] names = bindKey("$r" + idx + "_to", cursor.to, declares, params);
+                predicates.add(compareKey(names, false, cursor.toInclusive));
+            }
+
+            selects.append("\nSELECT ").append(quoted(columns)).append('\n');
+            selects.append("FROM `").append(tablePath).append("`\n");
+            if (predicates.size() == 1) {
+                selects.append("WHERE ").append(disjunction(predicates.get(0))).append('\n');
+            } else if (predicates.size() == 2) {
+                selects.append("WHERE ").append(group(predicates.get(0)))
+                        .append(" AND ").append(group(predicates.get(1))).append('\n');
+            }
+            selects.append("ORDER BY ").append(quoted(keyColumns)).append('\n');
+            selects.append("LIMIT $limit;\n");
+        }
+        return declares.append(selects).toString();
+    }
+
+    /**
+     * Declares and binds non-NULL parts of the key
+     *
+     * @return names of parameters of the parts, null for NULL parts
+     */
+    private String[] bindKey(String prefix, Value<?>[] key, StringBuilder declares, Params params) {
+        String[] names = new String[key.length];
+        for (int idx = 0; idx < key.length; idx++) {
+            if (isNull(key[idx])) {
+                continue;
+            }
+            names[idx] = prefix + idx;
+            declares.append("DECLARE ").append(names[idx]).append(" AS ").append(keyTypes[idx]).append(";\n");
+            params.put(names[idx], key[idx]);
+        }
+        return names;
+    }
+
+    private CompletableFuture<Page<T>> fetch(Value<?>[] lastKey) {
+        Params params = Params.create(keyTypes.length + 1)
+                .put("$limit", PrimitiveValue.newUint64(pageSize));
+        long nullMask = 0;
+        if (lastKey != null) {
+            for (int idx = 0; idx < lastKey.length; idx++) {
+                if (isNull(lastKey[idx])) {
+                    nullMask |= 1L << idx;
+                } else {
+                    params.put("$k" + idx, lastKey[idx]);
+                }
+            }
+        }
+        String query = lastKey != null ? nextPageQuery(nullMask) : firstPageQuery;
+        return retryCtx.supplyResult(session -> session.executeDataQuery(query, txControl, params))
+                .thenApply(Result::getValue)
+                .thenApply(result -> toPage(result.getResultSet(0)));
+    }
+
+    private Page<T> toPage(ResultSetReader resultSet) {
+        if (resultSet.isTruncated()) {
+            // the walk would stop after the truncated page as if the table ended
+            throw new IllegalStateException("Page of " + tablePath + " was truncated to "
+                    + resultSet.getRowCount() + " rows");
+        }
+        List<T> rows = mapper.mapAll(resultSet);
+        if (rows.isEmpty()) {
+            return new Page<>(Collections.emptyList(), null);
+        }
+
+        resultSet.setRowIndex(resultSet.getRowCount() - 1);
+        Value<?>[] lastKey = new Value<?>[keyTypes.length];
+        for (int idx = 0; idx < lastKey.length; idx++) {
+            lastKey[idx] = keyValue(idx, resultSet.getColumn(keyColumns.get(idx)).getValue());
+        }
+        return new Page<>(rows, lastKey);
+    }
+
+    /**
+     * Keys are declared with the type of the column, values of nullable columns may be read as plain values
+     */
+    private Value<?> keyValue(int idx, Value<?> value) {
+        if (keyTypes[idx].getKind() == Type.Kind.OPTIONAL && value.getType().getKind() != Type.Kind.OPTIONAL) {
+            return value.makeOptional();
+        }
+        return value;
+    }
+
+    private static boolean isNull(Value<?> value) {
+        return value instanceof OptionalValue && !((OptionalValue) value).isPresent();
+    }
+
+    /**
+     * @param names parameters of parts of the last key, null for NULL parts, or null for the first page
+     */
+    private String pageQuery(String[] names) {
+        StringBuilder query = new StringBuilder();
+        query.append("DECLARE $limit AS Uint64;\n");
+        if (names != null) {
+            for (int idx = 0; idx < names.length; idx++) {
+                if (names[idx] != null) {
+                    query.append("DECLARE ").append(names[idx]).append(" AS ").append(keyTypes[idx]).append(";\n");
+                }
+            }
+        }
+
+        query.append("\nSELECT ").append(quoted(columns)).append('\n');
+        query.append("FROM `").append(tablePath).append("`\n");
+        if (names != null) {
+            query.append("WHERE ").append(disjunction(compareKey(names, true, false))).append('\n');
+        }
+        query.append("ORDER BY ").append(quoted(keyColumns)).append('\n');
+        query.append("LIMIT $limit;");
+        return query.toString();
+    }
+
+    /**
+     * Predicate of keys after or before the bound, compared by the prefix of the key of the bound length. Tuple
+     * comparison can't be used, it is NULL if any compared part is NULL, while NULL is the least value in the key
+     * order.
+     *
+     * @param names parameters of parts of the bound, null for NULL parts
+     * @param after select keys after the bound if true, before it otherwise
+     * @param inclusive select keys equal to the bound
+     * @return terms of the disjunction, empty if no key matches
+     */
+    private List<String> compareKey(String[] names, boolean after, boolean inclusive) {
+        List<String> terms = new ArrayList<>(names.length + 1);
+        List<String> equal = new ArrayList<>(names.length);
+        for (int idx = 0; idx < names.length; idx++) {
+            String column = "`" + keyColumns.get(idx) + "`";
+            boolean nullable = keyTypes[idx].getKind() == Type.Kind.OPTIONAL;
+
+            String compare;
+            if (after) {
+                compare = names[idx] == null ? column + " IS NOT NULL" : column + " > " + names[idx];
+            } else if (names[idx] == null) {
+                compare = null; // nothing is before NULL
+            } else {
+                compare = nullable
+                        ? "(" + column + " IS NULL OR " + column + " < " + names[idx] + ")"
+                        : column + " < " + names[idx];
+            }
+            if (compare != null) {
+                terms.add(conjunction(equal, compare));
+            }
+            equal.add(names[idx] == null ? column + " IS NULL" : column + " = " + names[idx]);
+        }
+        if (inclusive) {
+            terms.add(conjunction(equal, null));
+        }
+
+        return terms;
+    }
+
+    private static String disjunction(List<String> terms) {
+        return terms.isEmpty() ? "FALSE" : String.join(" OR ", terms);
+    }
+
+    private static String group(List<String> terms) {
+        return terms.size() > 1 ? "(" + disjunction(terms) + ")" : disjunction(terms);
+    }
+
+    private static String conjunction(List<String> prefix, String last) {
+        List<String> parts = new ArrayList<>(prefix);
+        if (last != null) {
+            parts.add(last);
+        }
+        return parts.size() == 1 ? parts.get(0) : "(" + String.join(" AND ", parts) + ")";
+    }
+
+    private static String quoted(List<String> names) {
+        StringBuilder result = new StringBuilder();
+        for (String name : names) {
+            if (result.length() > 0) {
+                result.append(", ");
+            }
+            result.append('`').append(name).append('`');
+        }
+        return result.toString();
+    }
+
+    private final class PageIterator implements Iterator<List<T>> {
+        /** Request of the next page, null when the last page was returned */
+        private CompletableFuture<Page<T>> next;
+
+        private PageIterator(CompletableFuture<Page<T>> first) {
+            this.next = first;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next != null && next.join().rows.isEmpty()) {
+                next = null;
+            }
+            return next != null;
+        }
+
+        @Override
+        public List<T> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Page<T> page = next.join();
+            next = page.rows.size() < pageSize ? null : fetch(page.lastKey);
+            return page.rows;
+        }
+    }
+
+    private final class SnapshotWalk {
+        private final Session session;
+        private final Consumer<List<T>> consumer;
+        private final AtomicBoolean delivered;
+        private final AtomicLong rows;
+        private String txId;
+
+        private SnapshotWalk(Session session, Consumer<List<T>> consumer, AtomicBoolean delivered,
+                AtomicLong rows) {
+            this.session = session;
+            this.consumer = consumer;
+            this.delivered = delivered;
+            this.rows = rows;
+        }
+
+        private CompletableFuture<Status> start() {
+            if (delivered.get()) {
+                return failed(null);
+            }
+            rows.set(0);
+            CompletableFuture<Status> walk = walk(readRound(rangeCursors()));
+            return walk.handle((status, th) -> th == null && status.isSuccess() ? walk : rollback(walk))
+                    .thenCompose(Function.identity());
+        }
+
+        /**
+         * Rolls back the snapshot transaction of a failed walk, the result of the walk is kept
+         */
+        private CompletableFuture<Status> rollback(CompletableFuture<Status> walk) {
+            if (txId == null) {
+                return walk;
+            }
+            return session.rollbackTransaction(txId, new RollbackTxSettings())
+                    .handle((status, th) -> walk)
+                    .thenCompose(Function.identity());
+        }
+
+        private CompletableFuture<Status> walk(CompletableFuture<Result<Round<T>>> current) {
+            return current.thenCompose(result -> {
+                if (!result.isSuccess()) {
+                    return delivered.get() ? failed(result.getStatus())
+                            : CompletableFuture.completedFuture(result.getStatus());
+                }
+
+                Round<T> round = result.getValue();
+                CompletableFuture<Result<Round<T>>> next = round.next.isEmpty() ? null : readRound(round.next);
+                for (List<T> page : round.pages) {
+                    if (!page.isEmpty()) {
+                        delivered.set(true);
+                        rows.addAndGet(page.size());
+                        consumer.accept(page);
+                    }
+                }
+                return next != null ? walk(next) : session.commitTransaction(txId, new CommitTxSettings());
+            });
+        }
+
+        private CompletableFuture<Result<Round<T>>> readRound(List<RangeCursor> cursors) {
+            Params params = Params.create();
+            String query = rangesQuery(cursors, params);
+            TxControl<?> tx = txId == null
+                    ? TxControl.snapshotRo().setCommitTx(false)
+                    : TxControl.id(txId).setCommitTx(false);
+            return session.executeDataQuery(query, tx, params).thenApply(result -> result.map(data -> {
+                txId = data.getTxId();
+                return toRound(cursors, data);
+            }));
+        }
+
+        private Round<T> toRound(List<RangeCursor> cursors, DataQueryResult data) {
+            List<List<T>> pages = new ArrayList<>(cursors.size());
+            List<RangeCursor> next = new ArrayList<>();
+            for (int idx = 0; idx < cursors.size(); idx++) {
+                Page<T> page = toPage(data.getResultSet(idx));
+                pages.add(page.rows);
+                if (page.rows.size() == pageSize) {
+                    next.add(cursors.get(idx).after(page.lastKey));
+                }
+            }
+            return new Round<>(pages, next);
+        }
+
+        /**
+         * Fails the walk without retries, pages of the failed snapshot were already passed to the consumer
+         */
+        private CompletableFuture<Status> failed(Status status) {
+            CompletableFuture<Status> future = new CompletableFuture<>();
+            future.completeExceptionally(new IllegalStateException("Snapshot read of " + tablePath
+                    + " failed after pages were read" + (status != null ? ": " + status : "")));
+            return future;
+        }
+    }
+
+    public static final class Builder<T> {
+        private final SessionRetryContext retryCtx;
+        private final String tablePath;
+        private final TableDescription description;
+        private final RowMapper<T> mapper;
+        private int pageSize = DEFAULT_PAGE_SIZE;
+        private TxControl<?> txControl = TxControl.snapshotRo();
+        private int parallelism = DEFAULT_PARALLELISM;
+
+        private Builder(SessionRetryContext retryCtx, String tablePath, TableDescription description,
+                RowMapper<T> mapper) {
+            this.retryCtx = retryCtx;
+            this.tablePath = tablePath;
+            this.description = description;
+            this.mapper = mapper;
+        }
+
+        /**
+         * Rows per page, at most 1000
+         */
+        public Builder<T> pageSize(int pageSize) {
+            if (pageSize <= 0 || pageSize > MAX_PAGE_SIZE) {
+                throw new IllegalArgumentException("pageSize must be in [1, " + MAX_PAGE_SIZE + "], but was "
+                        + pageSize);
+            }
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        /**
+         * Transaction mode of page queries, must be read-only or commit the transaction
+         */
+        public Builder<T> txControl(TxControl<?> txControl) {
+            this.txControl = txControl;
+            return this;
+        }
+
+        /**
+         * Maximal count of key ranges read in parallel by {@link KeysetPaginator#forEachPageInSnapshot(Consumer)}
+         */
+        public Builder<T> parallelism(int parallelism) {
+            if (parallelism <= 0) {
+                throw new IllegalArgumentException("parallelism must be positive, but was " + parallelism);
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public KeysetPaginator<T> build() {
+            return new KeysetPaginator<>(this);
+        }
+    }
+}
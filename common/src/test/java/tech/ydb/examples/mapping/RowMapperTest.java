@@ -0,0 +1,138 @@
+package tech.ydb.examples.mapping;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import tech.ydb.proto.ValueProtos;
+import tech.ydb.table.result.ResultSetReader;
+import tech.ydb.table.result.impl.ProtoValueReaders;
+import tech.ydb.table.values.proto.ProtoType;
+import tech.ydb.table.values.proto.ProtoValue;
+
+public class RowMapperTest {
+    public static class Item {
+        private final long id;
+        private final String name;
+        private final LocalDate date;
+        private final int number;
+
+        public Item(long id, String name, LocalDate date, int number) {
+            this.id = id;
+            this.name = name;
+            this.date = date;
+            this.number = number;
+        }
+    }
+
+    private static final RowMapper<Item> MAPPER = RowMapper.builder(Item.class)
+            .column("id")
+            .column("name")
+            .column("date", LocalDate::ofEpochDay)
+            .column("number")
+            .build();
+
+    private static ValueProtos.Column column(String name, ValueProtos.Type type) {
+        return ValueProtos.Column.newBuilder().setName(name).setType(type).build();
+    }
+
+    private static ResultSetReader resultSet(boolean reversed, Object[]... rows) {
+        ValueProtos.Column[] columns = new ValueProtos.Column[] {
+            column("id", ProtoType.getUint64()),
+            column("name", ProtoType.getOptional(ProtoType.getText())),
+            column("date", ProtoType.getUint32()),
+            column("number", ProtoType.getUint32()),
+        };
+
+        ValueProtos.ResultSet.Builder builder = ValueProtos.ResultSet.newBuilder();
+        for (int idx = 0; idx < columns.length; idx++) {
+            builder.addColumns(columns[reversed ? columns.length - 1 - idx : idx]);
+        }
+
+        for (Object[] row : rows) {
+            ValueProtos.Value[] items = new ValueProtos.Value[] {
+                ProtoValue.fromUint64((Long) row[0]),
+                row[1] == null ? ProtoValue.optional() : ProtoValue.fromText((String) row[1]),
+                ProtoValue.fromUint32((Integer) row[2]),
+                ProtoValue.fromUint32((Integer) row[3]),
+            };
+            ValueProtos.Value.Builder value = ValueProtos.Value.newBuilder();
+            for (int idx = 0; idx < items.length; idx++) {
+                value.addItems(items[reversed ? items.length - 1 - idx : idx]);
+            }
+            builder.addRows(value);
+        }
+        return ProtoValueReaders.forResultSet(builder.build());
+    }
+
+    @Test
+    public void mapAllRows() {
+        List<Item> items = MAPPER.mapAll(resultSet(false,
+                new Object[] { 1L, "first", 18000, 7 },
+                new Object[] { 2L, null, 18001, 8 }));
+
+        Assertions.assertEquals(2, items.size());
+        Assertions.assertEquals(1L, items.get(0).id);
+        Assertions.assertEquals("first", items.get(0).name);
+        Assertions.assertEquals(LocalDate.ofEpochDay(18000), items.get(0).date);
+        Assertions.assertEquals(7, items.get(0).number);
+
+        Assertions.assertEquals(2L, items.get(1).id);
+        Assertions.assertNull(items.get(1).name);
+        Assertions.assertEquals(LocalDate.ofEpochDay(18001), items.get(1).date);
+        Assertions.assertEquals(8, items.get(1).number);
+    }
+
+    @Test
+    public void columnsAreResolvedByName() {
+        List<Item> items = MAPPER.mapAll(resultSet(true, new Object[] { 3L, "third", 18002, 9 }));
+
+        Assertions.assertEquals(1, items.size());
+        Assertions.assertEquals(3L, items.get(0).id);
+        Assertions.assertEquals("third", items.get(0).name);
+        Assertions.assertEquals(LocalDate.ofEpochDay(18002), items.get(0).date);
+        Assertions.assertEquals(9, items.get(0).number);
+    }
+
+    @Test
+    public void missingColumnIsRejected() {
+        RowMapper<Item> mapper = RowMapper.builder(Item.class)
+                .column("id")
+                .column("title")
+                .column("date", LocalDate::ofEpochDay)
+                .column("number")
+                .build();
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> mapper.bind(resultSet(false, new Object[] { 1L, "first", 18000, 7 })));
+    }
+
+    @Test
+    public void nullOfPrimitiveParameterNamesColumn() {
+        ValueProtos.ResultSet.Builder builder = ValueProtos.ResultSet.newBuilder()
+                .addColumns(column("id", ProtoType.getOptional(ProtoType.getUint64())))
+                .addColumns(column("name", ProtoType.getText()))
+                .addColumns(column("date", ProtoType.getUint32()))
+                .addColumns(column("number", ProtoType.getUint32()));
+        builder.addRows(ValueProtos.Value.newBuilder()
+                .addItems(ProtoValue.fromUint64(1))
+                .addItems(ProtoValue.fromText("first"))
+                .addItems(ProtoValue.fromUint32(18000))
+                .addItems(ProtoValue.fromUint32(7)));
+        builder.addRows(ValueProtos.Value.newBuilder()
+                .addItems(ProtoValue.optional())
+                .addItems(ProtoValue.fromText("second"))
+                .addItems(ProtoValue.fromUint32(18001))
+                .addItems(ProtoValue.fromUint32(8)));
+        ResultSetReader resultSet = ProtoValueReaders.forResultSet(builder.build());
+
+        RowMapper<Item>.Bound mapper = MAPPER.bind(resultSet);
+        Assertions.assertTrue(resultSet.next());
+        Assertions.assertEquals(1L, mapper.map().id);
+        Assertions.assertTrue(resultSet.next());
+        IllegalStateException e = Assertions.assertThrows(IllegalStateException.class, mapper::map);
+        Assertions.assertEquals("Column id is NULL and can't be passed as long", e.getMessage());
+    }
+}
@@ -0,0 +1,293 @@
+package tech.ydb.examples.paging;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import tech.ydb.core.Result;
+import tech.ydb.core.Status;
+import tech.ydb.examples.mapping.RowMapper;
+import tech.ydb.proto.ValueProtos;
+import tech.ydb.proto.table.YdbTable;
+import tech.ydb.table.Session;
+import tech.ydb.table.SessionRetryContext;
+import tech.ydb.table.SessionSupplier;
+import tech.ydb.table.description.KeyBound;
+import tech.ydb.table.description.KeyRange;
+import tech.ydb.table.description.TableDescription;
+import tech.ydb.table.query.DataQueryResult;
+import tech.ydb.table.query.Params;
+import tech.ydb.table.values.PrimitiveType;
+import tech.ydb.table.values.PrimitiveValue;
+import tech.ydb.table.values.TupleValue;
+import tech.ydb.table.values.proto.ProtoType;
+import tech.ydb.table.values.proto.ProtoValue;
+
+public class KeysetPaginatorTest {
+    public static class Item {
+        public Item(String city, int number) {
+        }
+    }
+
+    private static final RowMapper<Item> MAPPER = RowMapper.builder(Item.class)
+            .column("city")
+            .column("number")
+            .build();
+
+    private static final TableDescription SCHOOLS = TableDescription.newBuilder()
+            .addNullableColumn("city", PrimitiveType.Text)
+            .addNullableColumn("number", PrimitiveType.Uint32)
+            .setPrimaryKeys("city", "number")
+            .build();
+
+    /**
+     * Returns prepared pages of schools to data queries and records the queries
+     */
+    private static final class FakeTable implements SessionSupplier {
+        private final Deque<ValueProtos.ResultSet> pages = new ArrayDeque<>();
+        private final List<String> queries = new ArrayList<>();
+        private final List<Params> params = new ArrayList<>();
+        private final List<String> finishedTransactions = new ArrayList<>();
+
+        private FakeTable page(boolean truncated, Object[]... rows) {
+            ValueProtos.ResultSet.Builder resultSet = ValueProtos.ResultSet.newBuilder()
+                    .addColumns(ValueProtos.Column.newBuilder().setName("city")
+                            .setType(ProtoType.getOptional(ProtoType.getText())))
+                    .addColumns(ValueProtos.Column.newBuilder().setName("number")
+                            .setType(ProtoType.getOptional(ProtoType.getUint32())))
+                    .setTruncated(truncated);
+            for (Object[] row : rows) {
+                resultSet.addRows(ValueProtos.Value.newBuilder()
+                        .addItems(row[0] == null ? ProtoValue.optional() : ProtoValue.fromText((String) row[0]))
+                        .addItems(ProtoValue.fromUint32((Integer) row[1])));
+            }
+            pages.add(resultSet.build());
+            return this;
+        }
+
+        @Override
+        public CompletableFuture<Result<Session>> createSession(Duration duration) {
+            Session session = (Session) Proxy.newProxyInstance(Session.class.getClassLoader(),
+                    new Class<?>[] {Session.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "executeDataQuery":
+                                queries.add((String) args[0]);
+                                params.add((Params) args[2]);
+                                YdbTable.ExecuteQueryResult result = YdbTable.ExecuteQueryResult.newBuilder()
+                                        .addResultSets(pages.remove())
+                                        .setTxMeta(YdbTable.TransactionMeta.newBuilder().setId("tx"))
+                                        .build();
+                                return CompletableFuture.completedFuture(Result.success(new DataQueryResult(result)));
+                            case "commitTransaction":
+                            case "rollbackTransaction":
+                                finishedTransactions.add(method.getName() + " " + args[0]);
+                                return CompletableFuture.completedFuture(Status.SUCCESS);
+                            case "close":
+                                return null;
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                    });
+            return CompletableFuture.completedFuture(Result.success(session));
+        }
+
+        @Override
+        public ScheduledExecutorService getScheduler() {
+            throw new UnsupportedOperationException();
+        }
+
+        private KeysetPaginator<Item> paginator(int pageSize) {
+            SessionRetryContext retryCtx = SessionRetryContext.create(this).build();
+            return KeysetPaginator.builder(retryCtx, "/local/schools", SCHOOLS, MAPPER)
+                    .pageSize(pageSize)
+                    .build();
+        }
+    }
+
+    @Test
+    public void compositeKey() {
+        TableDescription description = TableDescription.newBuilder()
+                .addNullableColumn("city", PrimitiveType.Text)
+                .addNonnullColumn("number", PrimitiveType.Uint32)
+                .addNullableColumn("address", PrimitiveType.Text)
+                .setPrimaryKeys("city", "number")
+                .build();
+        KeysetPaginator<Item> paginator = KeysetPaginator.builder(null, "/local/schools", description, MAPPER)
+                .build();
+
+        Assertions.assertEquals("DECLARE $limit AS Uint64;\n"
+                + "\n"
+                + "SELECT `city`, `number`, `address`\n"
+                + "FROM `/local/schools`\n"
+                + "ORDER BY `city`, `number`\n"
+                + "LIMIT $limit;", paginator.firstPageQuery());
+        Assertions.assertEquals("DECLARE $limit AS Uint64;\n"
+                + "DECLARE $k0 AS Text?;\n"
+                + "DECLARE $k1 AS Uint32;\n"
+                + "\n"
+                + "SELECT `city`, `number`, `address`\n"
+                + "FROM `/local/schools`\n"
+                + "WHERE `city` > $k0 OR (`city` = $k0 AND `number` > $k1)\n"
+                + "ORDER BY `city`, `number`\n"
+                + "LIMIT $limit;", paginator.nextPageQuery());
+    }
+
+    @Test
+    public void singleColumnKey() {
+        TableDescription description = TableDescription.newBuilder()
+                .addNonnullColumn("id", PrimitiveType.Uint64)
+                .addNullableColumn("city", PrimitiveType.Text)
+                .addNullableColumn("number", PrimitiveType.Uint32)
+                .setPrimaryKey("id")
+                .build();
+        KeysetPaginator<Item> paginator = KeysetPaginator.builder(null, "/local/items", description, MAPPER)
+                .build();
+
+        Assertions.assertEquals("DECLARE $limit AS Uint64;\n"
+                + "DECLARE $k0 AS Uint64;\n"
+                + "\n"
+                + "SELECT `id`, `city`, `number`\n"
+                + "FROM `/local/items`\n"
+                + "WHERE `id` > $k0\n"
+                + "ORDER BY `id`\n"
+                + "LIMIT $limit;", paginator.nextPageQuery());
+    }
+
+    @Test
+    public void nullKeyPart() {
+        FakeTable table = new FakeTable()
+                .page(false, new Object[] {null, 1}, new Object[] {null, 2})
+                .page(false, new Object[] {"Moscow", 1});
+
+        List<List<Item>> pages = new ArrayList<>();
+        table.paginator(2).forEach(pages::add);
+
+        Assertions.assertEquals(2, pages.size());
+        Assertions.assertEquals(1, pages.get(1).size());
+        Assertions.assertEquals("DECLARE $limit AS Uint64;\n"
+                + "DECLARE $k1 AS Uint32?;\n"
+                + "\n"
+                + "SELECT `city`, `number`\n"
+                + "FROM `/local/schools`\n"
+                + "WHERE `city` IS NOT NULL OR (`city` IS NULL AND `number` > $k1)\n"
+                + "ORDER BY `city`, `number`\n"
+                + "LIMIT $limit;", table.queries.get(1));
+        Params params = table.params.get(1);
+        Assertions.assertEquals(new HashSet<>(Arrays.asList("$limit", "$k1")), params.values().keySet());
+        Assertions.assertEquals(PrimitiveValue.newUint32(2).makeOptional(), params.values().get("$k1"));
+    }
+
+    @Test
+    public void truncatedPage() {
+        FakeTable table = new FakeTable()
+                .page(true, new Object[] {"Moscow", 1}, new Object[] {"Moscow", 2});
+
+        Iterator<List<Item>> pages = table.paginator(1000).iterator();
+        CompletionException error = Assertions.assertThrows(CompletionException.class, pages::hasNext);
+        Assertions.assertTrue(error.getCause() instanceof IllegalStateException);
+    }
+
+    @Test
+    public void snapshotIsCommitted() {
+        FakeTable table = new FakeTable()
+                .page(false, new Object[] {"Moscow", 1}, new Object[] {"Moscow", 2})
+                .page(false, new Object[] {"Tver", 1});
+
+        List<List<Item>> pages = new ArrayList<>();
+        Assertions.assertEquals(3L, table.paginator(2).forEachPageInSnapshot(pages::add).join());
+        Assertions.assertEquals(2, pages.size());
+        Assertions.assertEquals(Arrays.asList("commitTransaction tx"), table.finishedTransactions);
+    }
+
+    @Test
+    public void failedSnapshotIsRolledBack() {
+        FakeTable table = new FakeTable()
+                .page(false, new Object[] {"Moscow", 1}, new Object[] {"Moscow", 2})
+                .page(true, new Object[] {"Tver", 1}, new Object[] {"Tver", 2});
+
+        List<List<Item>> pages = new ArrayList<>();
+        CompletableFuture<Long> walk = table.paginator(2).forEachPageInSnapshot(pages::add);
+        Assertions.assertThrows(CompletionException.class, walk::join);
+        Assertions.assertEquals(1, pages.size());
+        Assertions.assertEquals(Arrays.asList("rollbackTransaction tx"), table.finishedTransactions);
+    }
+
+    @Test
+    public void pageSizeOverResultLimit() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> KeysetPaginator.builder(null, "/local/schools", SCHOOLS, MAPPER).pageSize(1001));
+    }
+
+    @Test
+    public void snapshotRanges() {
+        TupleValue moscow = TupleValue.of(
+                PrimitiveValue.newText("Moscow").makeOptional(),
+                PrimitiveType.Uint32.makeOptional().emptyValue());
+        TupleValue tver = TupleValue.of(
+                PrimitiveValue.newText("Tver").makeOptional(),
+                PrimitiveValue.newUint32(5).makeOptional());
+        TableDescription description = TableDescription.newBuilder()
+                .addNullableColumn("city", PrimitiveType.Text)
+                .addNullableColumn("number", PrimitiveType.Uint32)
+                .setPrimaryKeys("city", "number")
+                .addKeyRange(new KeyRange(Optional.empty(), Optional.of(KeyBound.exclusive(moscow))))
+                .addKeyRange(new KeyRange(
+                        Optional.of(KeyBound.inclusive(moscow)), Optional.of(KeyBound.exclusive(tver))))
+                .addKeyRange(new KeyRange(Optional.of(KeyBound.inclusive(tver)), Optional.empty()))
+                .build();
+
+        String select = "SELECT `city`, `number`\n"
+                + "FROM `/local/schools`\n";
+        String order = "ORDER BY `city`, `number`\n"
+                + "LIMIT $limit;\n";
+
+        KeysetPaginator<Item> paginator = KeysetPaginator.builder(null, "/local/schools", description, MAPPER)
+                .build();
+        Assertions.assertEquals("DECLARE $limit AS Uint64;\n"
+                + "DECLARE $r0_to0 AS Text?;\n"
+                + "DECLARE $r1_from0 AS Text?;\n"
+                + "DECLARE $r1_to0 AS Text?;\n"
+                + "DECLARE $r1_to1 AS Uint32?;\n"
+                + "DECLARE $r2_from0 AS Text?;\n"
+                + "DECLARE $r2_from1 AS Uint32?;\n"
+                + "\n" + select
+                + "WHERE (`city` IS NULL OR `city` < $r0_to0)\n" + order
+                + "\n" + select
+                + "WHERE (`city` > $r1_from0 OR (`city` = $r1_from0 AND `number` IS NOT NULL)"
+                + " OR (`city` = $r1_from0 AND `number` IS NULL))"
+                + " AND ((`city` IS NULL OR `city` < $r1_to0)"
+                + " OR (`city` = $r1_to0 AND (`number` IS NULL OR `number` < $r1_to1)))\n" + order
+                + "\n" + select
+                + "WHERE `city` > $r2_from0 OR (`city` = $r2_from0 AND `number` > $r2_from1)"
+                + " OR (`city` = $r2_from0 AND `number` = $r2_from1)\n" + order,
+                paginator.firstRoundQuery(Params.create()));
+
+        KeysetPaginator<Item> single = KeysetPaginator.builder(null, "/local/schools", description, MAPPER)
+                .parallelism(1)
+                .build();
+        Assertions.assertEquals("DECLARE $limit AS Uint64;\n"
+                + "\n" + select + order, single.firstRoundQuery(Params.create()));
+    }
+
+    @Test
+    public void tableWithoutKey() {
+        TableDescription description = TableDescription.newBuilder()
+                .addNullableColumn("city", PrimitiveType.Text)
+                .build();
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> KeysetPaginator.builder(null, "/local/items", description, MAPPER).build());
+    }
+}
@@ -4,35 +4,147 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 
 import tech.ydb.auth.TokenAuthProvider;
 import tech.ydb.core.grpc.GrpcTransport;
 import tech.ydb.core.grpc.GrpcTransportBuilder;
 import tech.ydb.examples.indexes.configuration.IndexesConfigurationProperties;
+import tech.ydb.examples.indexes.leaderboard.MostViewedLeaderboard;
+import tech.ydb.examples.indexes.repositories.GlobalIndexSeriesRepository;
+import tech.ydb.examples.indexes.repositories.OutboxConsumer;
+import tech.ydb.examples.indexes.repositories.OutboxSeriesRepository;
+import tech.ydb.examples.indexes.repositories.SeriesCache;
 import tech.ydb.examples.indexes.repositories.SeriesRepository;
+import tech.ydb.examples.indexes.repositories.TablePartitioning;
+import tech.ydb.examples.indexes.repositories.ViewsCounter;
 import tech.ydb.table.TableClient;
 
 @SpringBootApplication
 public class Application {
     private static final Logger logger = LoggerFactory.getLogger(Application.class);
+    private static final int VIEWS_COUNTER_STRIPES = 16;
 
     @Bean
-    ExecutorService grpcExecutor() {
-        return Executors.newFixedThreadPool(3);
+    ExecutorService grpcExecutor(MeterRegistry meterRegistry) {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        new ExecutorServiceMetrics(executor, "grpcExecutor", Tags.empty()).bindTo(meterRegistry);
+        return executor;
     }
 
     @Bean
-    ScheduledExecutorService timerScheduler() {
-        return Executors.newScheduledThreadPool(1);
+    ScheduledExecutorService timerScheduler(MeterRegistry meterRegistry) {
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
+        new ExecutorServiceMetrics(scheduler, "timerScheduler", Tags.empty()).bindTo(meterRegistry);
+        return scheduler;
+    }
+
+    /**
+     * Call executor of exports. Read streams of exports block it while the client is slow, so it isn't shared with
+     * other queries.
+     */
+    @Bean
+    ExecutorService exportExecutor(MeterRegistry meterRegistry) {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        new ExecutorServiceMetrics(executor, "exportExecutor", Tags.empty()).bindTo(meterRegistry);
+        return executor;
     }
 
     @Bean(destroyMethod = "close")
     GrpcTransport grpcTransport(IndexesConfigurationProperties properties, ExecutorService grpcExecutor) {
+        return newTransport(properties, grpcExecutor);
+    }
+
+    @Bean(destroyMethod = "close")
+    GrpcTransport exportTransport(IndexesConfigurationProperties properties, ExecutorService exportExecutor) {
+        return newTransport(properties, exportExecutor);
+    }
+
+    @Bean
+    TableClient tableClient(GrpcTransport grpcTransport) {
+        return TableClient.newClient(grpcTransport).build();
+    }
+
+    @Bean
+    TableClient exportTableClient(GrpcTransport exportTransport) {
+        return TableClient.newClient(exportTransport).build();
+    }
+
+    @Bean
+    SeriesRepository seriesRepository(TableClient tableClient, TableClient exportTableClient,
+            IndexesConfigurationProperties properties, MeterRegistry meterRegistry) {
+        logger.info("Using {} index mode", properties.getMode());
+        SeriesRepository repository;
+        switch (properties.getMode()) {
+            case GLOBAL_SYNC:
+                repository = new GlobalIndexSeriesRepository(tableClient, properties.getPrefix(), false, meterRegistry);
+                break;
+            case GLOBAL_ASYNC:
+                repository = new GlobalIndexSeriesRepository(tableClient, properties.getPrefix(), true, meterRegistry);
+                break;
+            case OUTBOX:
+                repository = new OutboxSeriesRepository(tableClient, properties.getPrefix(), meterRegistry);
+                break;
+            case MANUAL:
+            default:
+                repository = new SeriesRepository(tableClient, properties.getPrefix(), meterRegistry);
+                break;
+        }
+
+        TablePartitioning partitioning = new TablePartitioning(
+                properties.getUniformPartitions(),
+                properties.isPartitioningByLoad(),
+                properties.getMinPartitions(),
+                properties.getMaxPartitions(),
+                properties.getReadReplicas());
+        logger.info("Using {} for new tables", partitioning);
+        repository.setPartitioning(partitioning);
+        repository.setReadAllClient(exportTableClient);
+
+        if (properties.getCacheSize() > 0) {
+            logger.info("Caching up to {} series for {} s",
+                    properties.getCacheSize(), properties.getCacheTtlSeconds());
+            repository.setCache(new SeriesCache(
+                    properties.getCacheSize(), properties.getCacheTtlSeconds(), meterRegistry));
+        }
+        return repository;
+    }
+
+    @Bean(destroyMethod = "close")
+    MostViewedLeaderboard mostViewedLeaderboard(SeriesRepository seriesRepository,
+            ScheduledExecutorService timerScheduler, IndexesConfigurationProperties properties) {
+        MostViewedLeaderboard leaderboard = new MostViewedLeaderboard(
+                seriesRepository, properties.getLeaderboardSize());
+        leaderboard.start(timerScheduler, properties.getLeaderboardReconcileSeconds());
+        return leaderboard;
+    }
+
+    @Bean(destroyMethod = "close")
+    ViewsCounter viewsCounter(SeriesRepository seriesRepository, ScheduledExecutorService timerScheduler,
+            IndexesConfigurationProperties properties, MeterRegistry meterRegistry) {
+        ViewsCounter counter = new ViewsCounter(seriesRepository, VIEWS_COUNTER_STRIPES, meterRegistry);
+        counter.start(timerScheduler, properties.getViewsFlushIntervalMs(), properties.getViewsMaxStalenessMs());
+        return counter;
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "indexes.mode", havingValue = "outbox")
+    OutboxConsumer outboxConsumer(SeriesRepository seriesRepository, ScheduledExecutorService timerScheduler,
+            IndexesConfigurationProperties properties, MeterRegistry meterRegistry) {
+        OutboxConsumer consumer = new OutboxConsumer(seriesRepository, properties.getOutboxBatchSize(), meterRegistry);
+        consumer.start(timerScheduler, properties.getOutboxPollIntervalMs());
+        return consumer;
+    }
+
+    private static GrpcTransport newTransport(IndexesConfigurationProperties properties, ExecutorService executor) {
         String endpoint = properties.getEndpoint();
         String database = properties.getDatabase();
         String token = properties.getToken();
@@ -41,23 +153,13 @@ public class Application {
         }
         logger.info("Creating rpc transport for endpoint={} database={}", endpoint, database);
         GrpcTransportBuilder builder = GrpcTransport.forEndpoint(endpoint, database)
-                .withCallExecutor(grpcExecutor);
+                .withCallExecutor(executor);
         if (token != null && !token.isEmpty()) {
             builder.withAuthProvider(new TokenAuthProvider(token));
         }
         return builder.build();
     }
 
-    @Bean
-    TableClient tableClient(GrpcTransport transport) {
-        return TableClient.newClient(transport).build();
-    }
-
-    @Bean
-    SeriesRepository seriesRepository(TableClient tableClient, IndexesConfigurationProperties properties) {
-        return new SeriesRepository(tableClient, properties.getPrefix());
-    }
-
     public static void main(String[] args) {
         SpringApplication.run(Application.class, args);
     }
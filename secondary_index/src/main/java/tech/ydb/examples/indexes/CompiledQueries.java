@@ -0,0 +1,96 @@
+package tech.ydb.examples.indexes;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import tech.ydb.core.Result;
+import tech.ydb.core.StatusCode;
+import tech.ydb.table.Session;
+import tech.ydb.table.query.DataQuery;
+import tech.ydb.table.query.DataQueryResult;
+import tech.ydb.table.query.Params;
+import tech.ydb.table.settings.PrepareDataQuerySettings;
+import tech.ydb.table.transaction.TxControl;
+
+/**
+ * Registry of query templates resolved for one table prefix. Texts of all templates are built once, so the
+ * server always sees the same query text. Every session prepares each query once with server side query cache
+ * enabled, and the next executions use the prepared query id.
+ */
+public class CompiledQueries {
+    private static final int MAX_CACHED_SESSIONS = 1000;
+
+    private static final ConcurrentHashMap<String, CompiledQueries> BY_PREFIX = new ConcurrentHashMap<>();
+
+    private final EnumMap<QueryTemplate, String> texts = new EnumMap<>(QueryTemplate.class);
+
+    /** Prepared queries by session id, sessions removed from the pool are evicted as least recently used */
+    private final Map<String, Map<QueryTemplate, DataQuery>> prepared = Collections.synchronizedMap(
+            new LinkedHashMap<String, Map<QueryTemplate, DataQuery>>(16, 0.75f, true) {
+                private static final long serialVersionUID = 5308153298364557471L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Map<QueryTemplate, DataQuery>> eldest) {
+                    return size() > MAX_CACHED_SESSIONS;
+                }
+            });
+
+    private CompiledQueries(String tablePrefix) {
+        for (QueryTemplate query : QueryTemplate.values()) {
+            texts.put(query, query.resolve(tablePrefix));
+        }
+    }
+
+    public static CompiledQueries forPrefix(String tablePrefix) {
+        return BY_PREFIX.computeIfAbsent(tablePrefix, CompiledQueries::new);
+    }
+
+    public String getText(QueryTemplate query) {
+        return texts.get(query);
+    }
+
+    public CompletableFuture<Result<DataQueryResult>> execute(
+            Session session, QueryTemplate query, TxControl<?> tx, Params params) {
+        DataQuery dataQuery = findPrepared(session, query);
+        if (dataQuery != null) {
+            return executePrepared(session, query, dataQuery, tx, params);
+        }
+
+        PrepareDataQuerySettings settings = new PrepareDataQuerySettings().keepInQueryCache();
+        return session.prepareDataQuery(getText(query), settings).thenCompose(result -> {
+            if (!result.isSuccess()) {
+                return CompletableFuture.completedFuture(Result.fail(result.getStatus()));
+            }
+            DataQuery newQuery = result.getValue();
+            prepared.computeIfAbsent(session.getId(), id -> new ConcurrentHashMap<>()).put(query, newQuery);
+            return executePrepared(session, query, newQuery, tx, params);
+        });
+    }
+
+    private DataQuery findPrepared(Session session, QueryTemplate query) {
+        Map<QueryTemplate, DataQuery> queries = prepared.get(session.getId());
+        return queries != null ? queries.get(query) : null;
+    }
+
+    private CompletableFuture<Result<DataQueryResult>> executePrepared(
+            Session session, QueryTemplate query, DataQuery dataQuery, TxControl<?> tx, Params params) {
+        return dataQuery.execute(tx, params).thenApply(result -> {
+            StatusCode code = result.getStatus().getCode();
+            if (code == StatusCode.NOT_FOUND) {
+                // query was evicted from the server cache, it will be prepared again on retry
+                Map<QueryTemplate, DataQuery> queries = prepared.get(session.getId());
+                if (queries != null) {
+                    queries.remove(query);
+                }
+            }
+            if (code == StatusCode.BAD_SESSION || code == StatusCode.SESSION_EXPIRED) {
+                prepared.remove(session.getId());
+            }
+            return result;
+        });
+    }
+}
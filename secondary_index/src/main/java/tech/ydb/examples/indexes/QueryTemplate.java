@@ -3,23 +3,67 @@ package tech.ydb.examples.indexes;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Scanner;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public enum QueryTemplate {
-    SERIES_INSERT("series_insert.yql"),
-    SERIES_DELETE("series_delete.yql"),
-    SERIES_UPDATE_VIEWS("series_update_views.yql"),
-    SERIES_FIND_BY_ID("series_find_by_id.yql"),
-    SERIES_FIND_ALL("series_find_all.yql"),
-    SERIES_FIND_ALL_NEXT("series_find_all_next.yql"),
-    SERIES_FIND_MOST_VIEWED("series_find_most_viewed.yql"),
-    SERIES_FIND_MOST_VIEWED_NEXT("series_find_most_viewed_next.yql");
+    SERIES_INSERT("series_insert.yql", TxMode.SERIALIZABLE_RW),
+    SERIES_INSERT_BATCH("series_insert_batch.yql", TxMode.SERIALIZABLE_RW),
+    SERIES_DELETE("series_delete.yql", TxMode.SERIALIZABLE_RW),
+    SERIES_UPDATE_VIEWS("series_update_views.yql", TxMode.SERIALIZABLE_RW),
+    SERIES_UPDATE_VIEWS_BATCH("series_update_views_batch.yql", TxMode.SERIALIZABLE_RW),
+    SERIES_ADD_VIEWS_BATCH("series_add_views_batch.yql", TxMode.SERIALIZABLE_RW),
+    SERIES_FIND_BY_ID("series_find_by_id.yql", TxMode.ONLINE_RO),
+    SERIES_FIND_BY_IDS("series_find_by_ids.yql", TxMode.ONLINE_RO),
+    SERIES_FIND_ALL("series_find_all.yql", TxMode.SNAPSHOT_RO),
+    SERIES_FIND_ALL_NEXT("series_find_all_next.yql", TxMode.SNAPSHOT_RO),
+    SERIES_FIND_MOST_VIEWED("series_find_most_viewed.yql", TxMode.SNAPSHOT_RO),
+    SERIES_FIND_MOST_VIEWED_NEXT("series_find_most_viewed_next.yql", TxMode.SNAPSHOT_RO),
+    SERIES_FIND_BY_RELEASE_DATE("series_find_by_release_date.yql", TxMode.SNAPSHOT_RO),
+    SERIES_FIND_BY_TRIGRAM("series_find_by_trigram.yql", TxMode.SNAPSHOT_RO),
+    SERIES_PROBE_TRIGRAMS("series_probe_trigrams.yql", TxMode.SNAPSHOT_RO),
+
+    // Consistency of manually maintained series_rev_views
+    SERIES_CHECK_MISSING_INDEX("series_check_missing_index.yql", TxMode.SNAPSHOT_RO),
+    SERIES_CHECK_ORPHANED_INDEX("series_check_orphaned_index.yql", TxMode.SNAPSHOT_RO),
+    SERIES_CHECK_SERIES_KEY_BOUNDS("series_check_series_key_bounds.yql", TxMode.SNAPSHOT_RO),
+    SERIES_CHECK_INDEX_KEY_BOUNDS("series_check_index_key_bounds.yql", TxMode.SNAPSHOT_RO),
+    SERIES_REPAIR_MISSING_INDEX("series_repair_missing_index.yql", TxMode.SERIALIZABLE_RW),
+    SERIES_REPAIR_ORPHANED_INDEX("series_repair_orphaned_index.yql", TxMode.SERIALIZABLE_RW),
+
+    // Variants which save changes of views to series_outbox instead of series_rev_views
+    SERIES_OB_INSERT("series_ob_insert.yql", TxMode.SERIALIZABLE_RW),
+    SERIES_OB_INSERT_BATCH("series_ob_insert_batch.yql", TxMode.SERIALIZABLE_RW),
+    SERIES_OB_DELETE("series_ob_delete.yql", TxMode.SERIALIZABLE_RW),
+    SERIES_OB_UPDATE_VIEWS("series_ob_update_views.yql", TxMode.SERIALIZABLE_RW),
+    SERIES_OB_UPDATE_VIEWS_BATCH("series_ob_update_views_batch.yql", TxMode.SERIALIZABLE_RW),
+    SERIES_OB_ADD_VIEWS_BATCH("series_ob_add_views_batch.yql", TxMode.SERIALIZABLE_RW),
+    SERIES_OUTBOX_APPLY("series_outbox_apply.yql", TxMode.SERIALIZABLE_RW),
+    SERIES_OUTBOX_OLDEST("series_outbox_oldest.yql", TxMode.ONLINE_RO),
+
+    // Variants for tables with server side global index on views
+    SERIES_GI_INSERT("series_gi_insert.yql", TxMode.SERIALIZABLE_RW),
+    SERIES_GI_INSERT_BATCH("series_gi_insert_batch.yql", TxMode.SERIALIZABLE_RW),
+    SERIES_GI_DELETE("series_gi_delete.yql", TxMode.SERIALIZABLE_RW),
+    SERIES_GI_UPDATE_VIEWS("series_gi_update_views.yql", TxMode.SERIALIZABLE_RW),
+    SERIES_GI_UPDATE_VIEWS_BATCH("series_gi_update_views_batch.yql", TxMode.SERIALIZABLE_RW),
+    SERIES_GI_ADD_VIEWS_BATCH("series_gi_add_views_batch.yql", TxMode.SERIALIZABLE_RW),
+    SERIES_GI_FIND_MOST_VIEWED("series_gi_find_most_viewed.yql", TxMode.SNAPSHOT_RO),
+    SERIES_GI_FIND_MOST_VIEWED_NEXT("series_gi_find_most_viewed_next.yql", TxMode.SNAPSHOT_RO),
+    SERIES_GI_FIND_BY_RELEASE_DATE("series_gi_find_by_release_date.yql", TxMode.SNAPSHOT_RO);
+
+    private static final String TABLE_PREFIX = "<TABLE_PREFIX>";
+    /** Line replaced with the text of another resource, for YQL shared by many templates */
+    private static final String INCLUDE = "^<INCLUDE ([\\w.]+)>$";
 
     private final String name;
     private final String text;
+    private final TxMode txMode;
 
-    QueryTemplate(String name) {
+    QueryTemplate(String name, TxMode txMode) {
         this.name = name;
         this.text = loadTemplate(name);
+        this.txMode = txMode;
     }
 
     public String getName() {
@@ -30,12 +74,36 @@ public enum QueryTemplate {
         return text;
     }
 
+    public TxMode getTxMode() {
+        return txMode;
+    }
+
+    /**
+     * Substitutes table prefix into the template. Use {@link CompiledQueries} to avoid doing it for every query
+     */
+    public String resolve(String tablePrefix) {
+        return text.replace(TABLE_PREFIX, tablePrefix);
+    }
+
     private static String loadTemplate(String name) {
+        String text;
         try (InputStream stream = QueryTemplate.class.getResourceAsStream(name)) {
+            if (stream == null) {
+                throw new IllegalStateException("Template " + name + " is not found");
+            }
             Scanner scanner = new Scanner(stream, "UTF-8").useDelimiter("\\A");
-            return scanner.hasNext() ? scanner.next() : "";
+            text = scanner.hasNext() ? scanner.next() : "";
         } catch (IOException e) {
             throw new IllegalStateException("Failed to load template " + name, e);
         }
+
+        // constants are created before other static fields are set, so the pattern can't be a field
+        Matcher include = Pattern.compile(INCLUDE, Pattern.MULTILINE).matcher(text);
+        StringBuffer result = new StringBuffer();
+        while (include.find()) {
+            include.appendReplacement(result, Matcher.quoteReplacement(loadTemplate(include.group(1)).trim()));
+        }
+        include.appendTail(result);
+        return result.toString();
     }
 }
@@ -0,0 +1,28 @@
+package tech.ydb.examples.indexes;
+
+import tech.ydb.table.transaction.TxControl;
+
+/**
+ * Transaction mode of a single query. Every query is executed in its own transaction which is committed
+ * together with the query.
+ */
+public enum TxMode {
+    /** Mutations, takes locks and may be aborted by conflicting transactions */
+    SERIALIZABLE_RW,
+    /** Consistent reads of several rows or tables, doesn't take locks */
+    SNAPSHOT_RO,
+    /** Reads of a single row, each read sees the latest committed data */
+    ONLINE_RO;
+
+    public TxControl<?> toTxControl() {
+        switch (this) {
+            case SNAPSHOT_RO:
+                return TxControl.snapshotRo().setCommitTx(true);
+            case ONLINE_RO:
+                return TxControl.onlineRo().setCommitTx(true);
+            case SERIALIZABLE_RW:
+            default:
+                return TxControl.serializableRw().setCommitTx(true);
+        }
+    }
+}
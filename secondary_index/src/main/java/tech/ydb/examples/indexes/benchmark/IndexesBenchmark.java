@@ -0,0 +1,191 @@
+package tech.ydb.examples.indexes.benchmark;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+
+import io.micrometer.core.instrument.Metrics;
+
+import tech.ydb.auth.TokenAuthProvider;
+import tech.ydb.core.grpc.GrpcTransport;
+import tech.ydb.core.grpc.GrpcTransportBuilder;
+import tech.ydb.examples.indexes.configuration.IndexMode;
+import tech.ydb.examples.indexes.load.LoadStats;
+import tech.ydb.examples.indexes.model.Series;
+import tech.ydb.examples.indexes.repositories.GlobalIndexSeriesRepository;
+import tech.ydb.examples.indexes.repositories.OutboxConsumer;
+import tech.ydb.examples.indexes.repositories.OutboxSeriesRepository;
+import tech.ydb.examples.indexes.repositories.SeriesRepository;
+import tech.ydb.table.TableClient;
+
+/**
+ * Compares the ways to index series by views: manually maintained series_rev_views table, synchronous and
+ * asynchronous global indexes, and series_rev_views maintained in background from the outbox. Every design gets its
+ * own directory under the prefix.
+ *
+ * <pre>
+ *   java -cp ... tech.ydb.examples.indexes.benchmark.IndexesBenchmark ENDPOINT DATABASE PREFIX [ROWS] [CONCURRENCY]
+ * </pre>
+ */
+public class IndexesBenchmark {
+    private static final int TOP_SIZE = 10;
+    private static final int CONSISTENCY_TOP_SIZE = 100;
+    private static final int READ_YOUR_WRITES_SAMPLES = 100;
+    private static final long MAX_RANDOM_VIEWS = 1000000;
+    private static final int OUTBOX_BATCH_SIZE = 1000;
+    private static final long OUTBOX_POLL_INTERVAL_MS = 100;
+
+    private final TableClient tableClient;
+    private final String prefix;
+    private final int rows;
+    private final int concurrency;
+
+    public IndexesBenchmark(TableClient tableClient, String prefix, int rows, int concurrency) {
+        this.tableClient = tableClient;
+        this.prefix = prefix.endsWith("/") ? prefix : prefix + "/";
+        this.rows = rows;
+        this.concurrency = concurrency;
+    }
+
+    private SeriesRepository createRepository(IndexMode mode) {
+        String modePrefix = prefix + "bench_" + mode.name().toLowerCase();
+        switch (mode) {
+            case GLOBAL_SYNC:
+                return new GlobalIndexSeriesRepository(tableClient, modePrefix, false);
+            case GLOBAL_ASYNC:
+                return new GlobalIndexSeriesRepository(tableClient, modePrefix, true);
+            case OUTBOX:
+                return new OutboxSeriesRepository(tableClient, modePrefix);
+            case MANUAL:
+            default:
+                return new SeriesRepository(tableClient, modePrefix);
+        }
+    }
+
+    public void run() {
+        Map<IndexMode, List<String>> report = new LinkedHashMap<>();
+        for (IndexMode mode : IndexMode.values()) {
+            System.out.println("--[ " + mode + " ]--");
+            report.put(mode, runMode(mode));
+        }
+
+        System.out.println("--[ Summary ]--");
+        for (Map.Entry<IndexMode, List<String>> entry : report.entrySet()) {
+            System.out.println(entry.getKey() + ":");
+            for (String line : entry.getValue()) {
+                System.out.println("    " + line);
+            }
+        }
+    }
+
+    private List<String> runMode(IndexMode mode) {
+        SeriesRepository repository = createRepository(mode);
+        repository.dropTables();
+        repository.createTables();
+        if (mode != IndexMode.OUTBOX) {
+            return runLoad(repository);
+        }
+
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try (OutboxConsumer consumer = new OutboxConsumer(repository, OUTBOX_BATCH_SIZE, Metrics.globalRegistry)) {
+            consumer.start(scheduler, OUTBOX_POLL_INTERVAL_MS);
+            return runLoad(repository);
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    private List<String> runLoad(SeriesRepository repository) {
+        long[] views = new long[rows];
+        for (int idx = 0; idx < rows; idx++) {
+            views[idx] = ThreadLocalRandom.current().nextLong(0, MAX_RANDOM_VIEWS);
+        }
+
+        List<String> lines = new ArrayList<>();
+
+        LoadStats inserts = LoadStats.run(rows, concurrency, idx -> repository.insertAsync(
+                new Series(idx, "Name " + idx, "Info " + idx, LocalDate.now(), views[idx])));
+        lines.add("insert       " + inserts);
+
+        // each update touches its own series, so the final state is known
+        LoadStats updates = LoadStats.run(rows, concurrency, idx -> {
+            views[idx] = ThreadLocalRandom.current().nextLong(0, MAX_RANDOM_VIEWS);
+            return repository.updateViewsAsync(idx, views[idx]);
+        });
+        lines.add("updateViews  " + updates);
+
+        LoadStats reads = LoadStats.run(rows, concurrency, idx -> repository.findMostViewedAsync(TOP_SIZE));
+        lines.add("mostViewed   " + reads);
+
+        lines.add("consistency  " + checkTop(repository, views));
+        lines.add("read-writes  " + checkReadYourWrites(repository));
+        for (String line : lines) {
+            System.out.println(line);
+        }
+        return lines;
+    }
+
+    /**
+     * Compares the top of most viewed series with the expected one
+     */
+    private String checkTop(SeriesRepository repository, long[] views) {
+        List<Integer> expected = new ArrayList<>(rows);
+        for (int idx = 0; idx < rows; idx++) {
+            expected.add(idx);
+        }
+        expected.sort(Comparator.<Integer>comparingLong(idx -> views[idx]).reversed()
+                .thenComparing(Comparator.naturalOrder()));
+
+        List<Series> actual = repository.findMostViewed(CONSISTENCY_TOP_SIZE);
+        int size = Math.min(CONSISTENCY_TOP_SIZE, rows);
+        int mismatches = Math.abs(size - actual.size());
+        for (int idx = 0; idx < Math.min(size, actual.size()); idx++) {
+            if (actual.get(idx).getSeriesId() != expected.get(idx)) {
+                mismatches++;
+            }
+        }
+        return String.format("%d of top %d positions differ from expected", mismatches, size);
+    }
+
+    /**
+     * Makes a series the most viewed one and immediately checks that it is on the top
+     */
+    private String checkReadYourWrites(SeriesRepository repository) {
+        int stale = 0;
+        for (int sample = 0; sample < READ_YOUR_WRITES_SAMPLES; sample++) {
+            long seriesId = ThreadLocalRandom.current().nextInt(rows);
+            repository.updateViews(seriesId, MAX_RANDOM_VIEWS * 1000 + sample);
+            List<Series> top = repository.findMostViewed(1);
+            if (top.isEmpty() || top.get(0).getSeriesId() != seriesId) {
+                stale++;
+            }
+        }
+        return String.format("%d of %d reads right after update were stale", stale, READ_YOUR_WRITES_SAMPLES);
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.err.println("Usage: IndexesBenchmark ENDPOINT DATABASE PREFIX [ROWS] [CONCURRENCY]");
+            return;
+        }
+        int rows = args.length > 3 ? Integer.parseInt(args[3]) : 10000;
+        int concurrency = args.length > 4 ? Integer.parseInt(args[4]) : 50;
+
+        GrpcTransportBuilder builder = GrpcTransport.forEndpoint(args[0], args[1]);
+        String token = System.getenv("YDB_TOKEN");
+        if (token != null && !token.isEmpty()) {
+            builder.withAuthProvider(new TokenAuthProvider(token));
+        }
+
+        try (GrpcTransport transport = builder.build();
+             TableClient tableClient = TableClient.newClient(transport).build()) {
+            new IndexesBenchmark(tableClient, args[2], rows, concurrency).run();
+        }
+    }
+}
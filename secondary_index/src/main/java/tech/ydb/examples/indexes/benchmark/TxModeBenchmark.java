@@ -0,0 +1,122 @@
+package tech.ydb.examples.indexes.benchmark;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import tech.ydb.auth.TokenAuthProvider;
+import tech.ydb.core.grpc.GrpcTransport;
+import tech.ydb.core.grpc.GrpcTransportBuilder;
+import tech.ydb.examples.indexes.QueryTemplate;
+import tech.ydb.examples.indexes.load.LoadStats;
+import tech.ydb.examples.indexes.model.Series;
+import tech.ydb.examples.indexes.repositories.SeriesRepository;
+import tech.ydb.table.TableClient;
+import tech.ydb.table.transaction.TxControl;
+
+/**
+ * Compares read queries executed in serializable read-write transactions with the same queries executed in
+ * read-only transactions taken from {@link QueryTemplate}, while the concurrent writers update views of the
+ * same series. Serializable reads take locks, so they conflict with writers and are retried. Each mode has its own
+ * meter registry, so the summary also reports retries of every query template, e.g. of attempts failed with
+ * {@code ABORTED} by lock invalidation.
+ *
+ * <pre>
+ *   java -cp ... tech.ydb.examples.indexes.benchmark.TxModeBenchmark ENDPOINT DATABASE PREFIX [ROWS] [CONCURRENCY]
+ * </pre>
+ */
+public class TxModeBenchmark {
+    private static final int TOP_SIZE = 10;
+    private static final long MAX_RANDOM_VIEWS = 1000000;
+
+    private final TableClient tableClient;
+    private final String prefix;
+    private final int rows;
+    private final int concurrency;
+
+    public TxModeBenchmark(TableClient tableClient, String prefix, int rows, int concurrency) {
+        this.tableClient = tableClient;
+        this.prefix = (prefix.endsWith("/") ? prefix : prefix + "/") + "bench_tx_mode";
+        this.rows = rows;
+        this.concurrency = concurrency;
+    }
+
+    public void run() {
+        SeriesRepository setup = new SeriesRepository(tableClient, prefix);
+        setup.dropTables();
+        setup.createTables();
+        List<Series> series = new ArrayList<>(rows);
+        for (int idx = 0; idx < rows; idx++) {
+            series.add(new Series(idx, "Name " + idx, "Info " + idx, LocalDate.now(),
+                    ThreadLocalRandom.current().nextLong(0, MAX_RANDOM_VIEWS)));
+        }
+        setup.insertBatch(series);
+
+        SimpleMeterRegistry serializableMetrics = new SimpleMeterRegistry();
+        SeriesRepository serializableTx = new SeriesRepository(tableClient, prefix, serializableMetrics) {
+            @Override
+            protected TxControl<?> txControl(QueryTemplate query) {
+                return TxControl.serializableRw().setCommitTx(true);
+            }
+        };
+        SimpleMeterRegistry templateMetrics = new SimpleMeterRegistry();
+        SeriesRepository templateTx = new SeriesRepository(tableClient, prefix, templateMetrics);
+
+        List<String> lines = new ArrayList<>();
+        lines.addAll(runMixed("serializable", serializableTx, serializableMetrics));
+        lines.addAll(runMixed("read-only   ", templateTx, templateMetrics));
+
+        System.out.println("--[ Summary ]--");
+        for (String line : lines) {
+            System.out.println(line);
+        }
+    }
+
+    private List<String> runMixed(String name, SeriesRepository repository, SimpleMeterRegistry metrics) {
+        // writers always use the default serializable mode
+        CompletableFuture<LoadStats> writes = CompletableFuture.supplyAsync(() -> LoadStats.run(rows, concurrency,
+                idx -> repository.updateViewsAsync(idx, ThreadLocalRandom.current().nextLong(0, MAX_RANDOM_VIEWS))));
+
+        LoadStats mostViewed = LoadStats.run(rows, concurrency, idx -> repository.findMostViewedAsync(TOP_SIZE));
+        LoadStats byId = LoadStats.run(rows, concurrency, idx -> repository.findByIdAsync(idx));
+
+        List<String> lines = new ArrayList<>();
+        lines.add(name + " mostViewed   " + mostViewed);
+        lines.add(name + " findById     " + byId);
+        lines.add(name + " updateViews  " + writes.join());
+
+        Map<String, Long> retries = new TreeMap<>();
+        for (Counter counter : metrics.find("ydb.series.query.retries").counters()) {
+            retries.put(counter.getId().getTag("query"), (long) counter.count());
+        }
+        lines.add(name + " retries      " + (retries.isEmpty() ? "none" : retries.toString()));
+        return lines;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.err.println("Usage: TxModeBenchmark ENDPOINT DATABASE PREFIX [ROWS] [CONCURRENCY]");
+            return;
+        }
+        int rows = args.length > 3 ? Integer.parseInt(args[3]) : 10000;
+        int concurrency = args.length > 4 ? Integer.parseInt(args[4]) : 50;
+
+        GrpcTransportBuilder builder = GrpcTransport.forEndpoint(args[0], args[1]);
+        String token = System.getenv("YDB_TOKEN");
+        if (token != null && !token.isEmpty()) {
+            builder.withAuthProvider(new TokenAuthProvider(token));
+        }
+
+        try (GrpcTransport transport = builder.build();
+             TableClient tableClient = TableClient.newClient(transport).build()) {
+            new TxModeBenchmark(tableClient, args[2], rows, concurrency).run();
+        }
+    }
+}
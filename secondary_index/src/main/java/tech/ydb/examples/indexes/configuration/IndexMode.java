@@ -0,0 +1,15 @@
+package tech.ydb.examples.indexes.configuration;
+
+/**
+ * How the series are indexed by views
+ */
+public enum IndexMode {
+    /** series_rev_views table is maintained by application in the same transaction */
+    MANUAL,
+    /** server side synchronous global index */
+    GLOBAL_SYNC,
+    /** server side asynchronous global index */
+    GLOBAL_ASYNC,
+    /** series_rev_views table is maintained by application in background from changes saved to series_outbox */
+    OUTBOX
+}
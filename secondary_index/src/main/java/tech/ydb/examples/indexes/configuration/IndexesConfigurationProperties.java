@@ -15,6 +15,20 @@ public class IndexesConfigurationProperties {
     private String token;
     @NotBlank
     private String prefix;
+    private IndexMode mode = IndexMode.MANUAL;
+    private int leaderboardSize = 1000;
+    private long leaderboardReconcileSeconds = 60;
+    private long viewsFlushIntervalMs = 1000;
+    private long viewsMaxStalenessMs = 5000;
+    private long uniformPartitions = 0;
+    private boolean partitioningByLoad = false;
+    private long minPartitions = 0;
+    private long maxPartitions = 0;
+    private int readReplicas = 0;
+    private int cacheSize = 0;
+    private long cacheTtlSeconds = 60;
+    private long outboxPollIntervalMs = 1000;
+    private int outboxBatchSize = 1000;
 
     public String getEndpoint() {
         return endpoint;
@@ -32,6 +46,62 @@ public class IndexesConfigurationProperties {
         return prefix;
     }
 
+    public IndexMode getMode() {
+        return mode;
+    }
+
+    public int getLeaderboardSize() {
+        return leaderboardSize;
+    }
+
+    public long getLeaderboardReconcileSeconds() {
+        return leaderboardReconcileSeconds;
+    }
+
+    public long getViewsFlushIntervalMs() {
+        return viewsFlushIntervalMs;
+    }
+
+    public long getViewsMaxStalenessMs() {
+        return viewsMaxStalenessMs;
+    }
+
+    public long getUniformPartitions() {
+        return uniformPartitions;
+    }
+
+    public boolean isPartitioningByLoad() {
+        return partitioningByLoad;
+    }
+
+    public long getMinPartitions() {
+        return minPartitions;
+    }
+
+    public long getMaxPartitions() {
+        return maxPartitions;
+    }
+
+    public int getReadReplicas() {
+        return readReplicas;
+    }
+
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    public long getCacheTtlSeconds() {
+        return cacheTtlSeconds;
+    }
+
+    public long getOutboxPollIntervalMs() {
+        return outboxPollIntervalMs;
+    }
+
+    public int getOutboxBatchSize() {
+        return outboxBatchSize;
+    }
+
     public void setEndpoint(String endpoint) {
         this.endpoint = endpoint;
     }
@@ -47,4 +117,60 @@ public class IndexesConfigurationProperties {
     public void setPrefix(String prefix) {
         this.prefix = prefix;
     }
+
+    public void setMode(IndexMode mode) {
+        this.mode = mode;
+    }
+
+    public void setLeaderboardSize(int leaderboardSize) {
+        this.leaderboardSize = leaderboardSize;
+    }
+
+    public void setLeaderboardReconcileSeconds(long leaderboardReconcileSeconds) {
+        this.leaderboardReconcileSeconds = leaderboardReconcileSeconds;
+    }
+
+    public void setViewsFlushIntervalMs(long viewsFlushIntervalMs) {
+        this.viewsFlushIntervalMs = viewsFlushIntervalMs;
+    }
+
+    public void setViewsMaxStalenessMs(long viewsMaxStalenessMs) {
+        this.viewsMaxStalenessMs = viewsMaxStalenessMs;
+    }
+
+    public void setUniformPartitions(long uniformPartitions) {
+        this.uniformPartitions = uniformPartitions;
+    }
+
+    public void setPartitioningByLoad(boolean partitioningByLoad) {
+        this.partitioningByLoad = partitioningByLoad;
+    }
+
+    public void setMinPartitions(long minPartitions) {
+        this.minPartitions = minPartitions;
+    }
+
+    public void setMaxPartitions(long maxPartitions) {
+        this.maxPartitions = maxPartitions;
+    }
+
+    public void setReadReplicas(int readReplicas) {
+        this.readReplicas = readReplicas;
+    }
+
+    public void setCacheSize(int cacheSize) {
+        this.cacheSize = cacheSize;
+    }
+
+    public void setCacheTtlSeconds(long cacheTtlSeconds) {
+        this.cacheTtlSeconds = cacheTtlSeconds;
+    }
+
+    public void setOutboxPollIntervalMs(long outboxPollIntervalMs) {
+        this.outboxPollIntervalMs = outboxPollIntervalMs;
+    }
+
+    public void setOutboxBatchSize(int outboxBatchSize) {
+        this.outboxBatchSize = outboxBatchSize;
+    }
 }
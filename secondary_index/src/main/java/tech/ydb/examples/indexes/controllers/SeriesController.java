@@ -1,17 +1,31 @@
 package tech.ydb.examples.indexes.controllers;
 
 import java.time.LocalDate;
-import java.util.ArrayDeque;
-import java.util.Deque;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import tech.ydb.core.Status;
+import tech.ydb.examples.indexes.load.AimdLoad;
+import tech.ydb.examples.indexes.leaderboard.MostViewedLeaderboard;
 import tech.ydb.examples.indexes.model.Series;
 import tech.ydb.examples.indexes.repositories.SeriesRepository;
+import tech.ydb.examples.indexes.repositories.ViewsCounter;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -19,16 +33,32 @@ import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/series")
 public class SeriesController {
     private static final Logger logger = LoggerFactory.getLogger(SeriesController.class);
+    private static final int MAX_CONCURRENT_EXPORTS = 1;
+    private static final int EXPORT_QUEUE_CAPACITY = 10000;
+    private static final long EXPORT_STALL_TIMEOUT_MS = 30000;
+    private static final long EXPORT_POLL_INTERVAL_MS = 100;
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
 
     private final SeriesRepository seriesRepository;
+    private final MostViewedLeaderboard leaderboard;
+    private final ViewsCounter viewsCounter;
+    private final ObjectMapper objectMapper;
+    /** Permits of running reads of exports, released when the read completes */
+    private final Semaphore exports = new Semaphore(MAX_CONCURRENT_EXPORTS);
 
-    public SeriesController(SeriesRepository seriesRepository) {
+    public SeriesController(SeriesRepository seriesRepository, MostViewedLeaderboard leaderboard,
+            ViewsCounter viewsCounter, ObjectMapper objectMapper) {
         this.seriesRepository = seriesRepository;
+        this.leaderboard = leaderboard;
+        this.viewsCounter = viewsCounter;
+        this.objectMapper = objectMapper;
     }
 
     @RequestMapping(path = "/drop_tables", method = RequestMethod.POST)
@@ -45,76 +75,206 @@ public class SeriesController {
         return "OK";
     }
 
+    /**
+     * Inserts random series by batches. Count of batches in flight adapts to the cluster: it starts from
+     * initialConcurrency and grows up to maxConcurrency while latency of batches stays stable.
+     */
     @RequestMapping(path = "/generate_random", method = RequestMethod.POST)
-    public String generateRandom(
+    public CompletableFuture<String> generateRandom(
             @RequestParam long startId,
             @RequestParam int count,
-            @RequestParam(defaultValue = "100") int maxConcurrency) {
-        long nextId = startId;
-        Deque<CompletableFuture<Boolean>> futures = new ArrayDeque<>();
-        while (count > 0) {
-            while (futures.size() >= maxConcurrency) {
-                futures.getFirst().join();
-                futures.removeFirst();
+            @RequestParam(defaultValue = "4") int initialConcurrency,
+            @RequestParam(defaultValue = "100") int maxConcurrency,
+            @RequestParam(defaultValue = "1000") int batchSize) {
+        int batches = (count + batchSize - 1) / batchSize;
+        AimdLoad load = AimdLoad.run(initialConcurrency, maxConcurrency, batches, batchIdx -> {
+            long firstId = startId + (long) batchIdx * batchSize;
+            int size = (int) Math.min(batchSize, startId + count - firstId);
+            List<Series> batch = new ArrayList<>(size);
+            for (long seriesId = firstId; seriesId < firstId + size; seriesId++) {
+                batch.add(new Series(
+                        seriesId,
+                        "Name " + seriesId,
+                        "Info " + seriesId,
+                        LocalDate.now(),
+                        ThreadLocalRandom.current().nextLong(0, 1000000)));
             }
-            long seriesId = nextId++;
-            logger.info("Creating series {}...", seriesId);
-            futures.add(seriesRepository.insertAsync(
-                    new Series(
-                            seriesId,
-                            "Name " + seriesId,
-                            "Info " + seriesId,
-                            LocalDate.now(),
-                            ThreadLocalRandom.current().nextLong(0, 1000000))));
-            --count;
-        }
-        while (!futures.isEmpty()) {
-            futures.getFirst().join();
-            futures.removeFirst();
-        }
-        return "OK";
+            logger.debug("Creating series {}..{}...", firstId, firstId + size - 1);
+            return seriesRepository.insertBatchAsync(batch, batchSize, 1);
+        });
+        return load.result().thenApply(stats -> {
+            String report = String.format(
+                    "%d rows in %.1f s, %.1f rows/s, batch p50 %.2f ms, p99 %.2f ms, failed batches %d, "
+                            + "concurrency peak %d, final %d",
+                    count, stats.elapsedSeconds(), count / Math.max(stats.elapsedSeconds(), 1e-9),
+                    stats.percentileMillis(50), stats.percentileMillis(99), stats.errors(),
+                    load.peakLimit(), load.currentLimit());
+            logger.info("Generated random series: {}", report);
+            return report;
+        });
     }
 
     @RequestMapping(path = "/list", method = RequestMethod.GET)
-    public List<Series> list(
+    public CompletableFuture<List<Series>> list(
             @RequestParam(defaultValue = "10") int limit,
             @RequestParam(required = false) Long lastSeriesId) {
-        List<Series> result;
         if (lastSeriesId != null) {
-            result = seriesRepository.findAll(limit, lastSeriesId);
-        } else {
-            result = seriesRepository.findAll(limit);
+            return seriesRepository.findAllAsync(limit, lastSeriesId);
+        }
+        return seriesRepository.findAllAsync(limit);
+    }
+
+    @RequestMapping(path = "/by_id/{id}", method = RequestMethod.GET)
+    public CompletableFuture<Series> byId(@PathVariable long id) {
+        return seriesRepository.findByIdAsync(id).thenApply(series -> {
+            if (series == null) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Series " + id + " not found");
+            }
+            return series;
+        });
+    }
+
+    /**
+     * Returns series with given ids in the same order, missing ids are skipped
+     */
+    @RequestMapping(path = "/by_ids", method = RequestMethod.GET)
+    public CompletableFuture<List<Series>> byIds(@RequestParam List<Long> ids) {
+        return seriesRepository.findByIdsAsync(ids);
+    }
+
+    /**
+     * Returns series released in [from, to) ordered by release date
+     */
+    @RequestMapping(path = "/by_release_date", method = RequestMethod.GET)
+    public CompletableFuture<List<Series>> byReleaseDate(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "" + SeriesRepository.DEFAULT_BATCH_CONCURRENCY) int maxConcurrency) {
+        return seriesRepository.findByReleaseDateRangeAsync(from, to, maxConcurrency);
+    }
+
+    /**
+     * Finds series with titles containing the text, ignoring case
+     */
+    @RequestMapping(path = "/search", method = RequestMethod.GET)
+    public CompletableFuture<List<Series>> search(
+            @RequestParam String title,
+            @RequestParam(defaultValue = "10") int limit) {
+        try {
+            return seriesRepository.searchByTitleAsync(title, limit);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * Streams all series as NDJSON, one object per line. The read passes series through a bounded queue to the
+     * thread writing the response and blocks while the queue is full. It runs on the export executor, which isn't
+     * shared with other queries, so a slow client delays only its export. A client which doesn't read the response
+     * for {@link #EXPORT_STALL_TIMEOUT_MS} fails the read, which releases the export permit even if the response
+     * body is never written.
+     */
+    @RequestMapping(path = "/export", method = RequestMethod.GET)
+    public ResponseEntity<StreamingResponseBody> export() {
+        if (!exports.tryAcquire()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Another export is running");
         }
-        return result;
+        BlockingQueue<Series> queue = new ArrayBlockingQueue<>(EXPORT_QUEUE_CAPACITY);
+        AtomicBoolean abandoned = new AtomicBoolean();
+        CompletableFuture<Status> read;
+        try {
+            read = seriesRepository.readAllAsync(series -> {
+                try {
+                    if (abandoned.get() || !queue.offer(series, EXPORT_STALL_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                        throw new IllegalStateException("Export response is not read by the client");
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Export was interrupted", e);
+                }
+            });
+        } catch (RuntimeException e) {
+            exports.release();
+            throw e;
+        }
+        read.whenComplete((status, th) -> exports.release());
+
+        StreamingResponseBody body = out -> {
+            try {
+                while (true) {
+                    Series series = queue.poll(EXPORT_POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                    if (series != null) {
+                        out.write(objectMapper.writeValueAsBytes(series));
+                        out.write('\n');
+                    } else if (read.isDone() && queue.isEmpty()) {
+                        break;
+                    }
+                }
+                read.join().expectSuccess("export failed");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Export was interrupted", e);
+            } finally {
+                // stops the read if writing failed, e.g. the client has disconnected
+                abandoned.set(true);
+                queue.clear();
+            }
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
     }
 
     @RequestMapping(path = "/most_viewed", method = RequestMethod.GET)
-    public List<Series> mostViewed(
+    public CompletableFuture<List<Series>> mostViewed(
             @RequestParam(defaultValue = "10") int limit,
             @RequestParam(required = false) Long lastSeriesId,
             @RequestParam(required = false) Long lastViews) {
-        List<Series> result;
         if (lastSeriesId != null && lastViews != null) {
-            result = seriesRepository.findMostViewed(limit, lastSeriesId, lastViews);
-        } else {
-            result = seriesRepository.findMostViewed(limit);
+            return seriesRepository.findMostViewedAsync(limit, lastSeriesId, lastViews);
+        }
+        List<Series> cached = leaderboard.findMostViewed(limit);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
         }
-        return result;
+        return seriesRepository.findMostViewedAsync(limit);
     }
 
     @RequestMapping(path = "/insert", method = RequestMethod.POST)
-    public String insert(@RequestBody Series series) {
-        seriesRepository.insert(series);
-        return "OK";
+    public CompletableFuture<String> insert(@RequestBody Series series) {
+        return seriesRepository.insertAsync(series).thenApply(result -> "OK");
+    }
+
+    @RequestMapping(path = "/insert_batch", method = RequestMethod.POST)
+    public CompletableFuture<String> insertBatch(
+            @RequestBody List<Series> series,
+            @RequestParam(defaultValue = "" + SeriesRepository.DEFAULT_BATCH_SIZE) int batchSize,
+            @RequestParam(defaultValue = "" + SeriesRepository.DEFAULT_BATCH_CONCURRENCY) int maxConcurrency) {
+        return seriesRepository.insertBatchAsync(series, batchSize, maxConcurrency).thenApply(String::valueOf);
     }
 
     @RequestMapping(path = "/delete/{id}", method = RequestMethod.POST)
-    public String delete(@PathVariable long id) {
-        return "" + seriesRepository.delete(id);
+    public CompletableFuture<String> delete(@PathVariable long id) {
+        return seriesRepository.deleteAsync(id).thenApply(String::valueOf);
     }
 
     @RequestMapping(path = "/update_views/{id}/{views}", method = RequestMethod.POST)
-    public String updateViews(@PathVariable long id, @PathVariable long views) {
-        return "" + seriesRepository.updateViews(id, views);
+    public CompletableFuture<String> updateViews(@PathVariable long id, @PathVariable long views) {
+        return seriesRepository.updateViewsAsync(id, views).thenApply(String::valueOf);
+    }
+
+    /**
+     * Sets views of many series, the body is an object of series id to views
+     */
+    @RequestMapping(path = "/update_views_batch", method = RequestMethod.POST)
+    public CompletableFuture<String> updateViewsBatch(
+            @RequestBody Map<Long, Long> views,
+            @RequestParam(defaultValue = "" + SeriesRepository.DEFAULT_BATCH_SIZE) int batchSize,
+            @RequestParam(defaultValue = "" + SeriesRepository.DEFAULT_BATCH_CONCURRENCY) int maxConcurrency) {
+        return seriesRepository.updateViewsBatchAsync(views, batchSize, maxConcurrency).thenApply(String::valueOf);
+    }
+
+    @RequestMapping(path = "/add_views/{id}/{delta}", method = RequestMethod.POST)
+    public String addViews(@PathVariable long id, @PathVariable long delta) {
+        viewsCounter.incrementViews(id, delta);
+        return "OK";
     }
 }
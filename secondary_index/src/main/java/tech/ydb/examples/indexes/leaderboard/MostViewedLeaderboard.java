@@ -0,0 +1,301 @@
+package tech.ydb.examples.indexes.leaderboard;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import tech.ydb.examples.indexes.model.Series;
+import tech.ydb.examples.indexes.repositories.SeriesListener;
+import tech.ydb.examples.indexes.repositories.SeriesRepository;
+
+/**
+ * In-memory copy of the top of most viewed series. The top is loaded from YDB, kept up to date by changes made
+ * through {@link SeriesRepository} and periodically reloaded to fix changes made by other applications.
+ * <p>
+ * All series which are not in the top rank below the floor, the last series removed from the top. So the top
+ * is exact while it contains enough series, otherwise requests must go to YDB.
+ * <p>
+ * Changes made while a reload is in flight are recorded with increasing versions. The reloaded top skips series
+ * changed after the reload started, as the read may have seen them before the change, and applies their latest
+ * known state instead.
+ */
+public class MostViewedLeaderboard implements SeriesListener, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(MostViewedLeaderboard.class);
+
+    /** The same order as most_viewed query uses */
+    private static final Comparator<Series> ORDER = Comparator.comparingLong(Series::getViews).reversed()
+            .thenComparingLong(Series::getSeriesId);
+
+    private static final class Change {
+        private final long version;
+        /** Series after the change, null if deleted. Only views and id are known if the title is null */
+        private final Series series;
+
+        private Change(long version, Series series) {
+            this.version = version;
+            this.series = series;
+        }
+    }
+
+    private final SeriesRepository repository;
+    private final int capacity;
+
+    private final TreeSet<Series> top = new TreeSet<>(ORDER);
+    private final Map<Long, Series> byId = new HashMap<>();
+    /** Series known to be in the top, but their data is not loaded yet */
+    private final Set<Long> loading = new HashSet<>();
+    /** All not tracked series rank below it, null if all series are tracked */
+    private Series floor = null;
+    private boolean ready = false;
+    /** Incremented on reset, results of requests started before it are ignored */
+    private long generation = 0;
+    /** Count of reloads in flight, changes are recorded while it is positive */
+    private int reloading = 0;
+    /** Incremented on every recorded change */
+    private long changeVersion = 0;
+    /** The latest change of every series changed while a reload is in flight */
+    private final Map<Long, Change> changes = new HashMap<>();
+
+    private ScheduledFuture<?> reconcileTask;
+
+    public MostViewedLeaderboard(SeriesRepository repository, int capacity) {
+        this.repository = repository;
+        this.capacity = capacity;
+        repository.addListener(this);
+    }
+
+    public void start(ScheduledExecutorService scheduler, long reconcilePeriodSeconds) {
+        reconcileTask = scheduler.scheduleAtFixedRate(
+                this::reconcile, 0, reconcilePeriodSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Returns the first page of most viewed series or null if it can't be served from memory
+     */
+    public synchronized List<Series> findMostViewed(int limit) {
+        if (!ready || limit > capacity) {
+            return null;
+        }
+        if (top.size() < limit && floor != null) {
+            return null;
+        }
+
+        List<Series> result = new ArrayList<>(Math.min(limit, top.size()));
+        Iterator<Series> it = top.iterator();
+        while (result.size() < limit && it.hasNext()) {
+            Series series = it.next();
+            if (loading.contains(series.getSeriesId())) {
+                return null;
+            }
+            result.add(series);
+        }
+        return result;
+    }
+
+    public void reconcile() {
+        long startGeneration;
+        long startVersion;
+        synchronized (this) {
+            startGeneration = generation;
+            startVersion = changeVersion;
+            reloading++;
+        }
+        repository.findMostViewedAsync(capacity).whenComplete((list, th) -> {
+            if (th != null) {
+                logger.warn("Can't load most viewed series", th);
+            }
+            synchronized (this) {
+                reloading--;
+                if (th == null && startGeneration == generation) {
+                    reload(list, startVersion);
+                }
+                if (reloading == 0) {
+                    changes.clear();
+                }
+            }
+        });
+    }
+
+    @Override
+    public synchronized void onInserted(Series series) {
+        recordChange(series.getSeriesId(), series);
+        if (!ready) {
+            return;
+        }
+        untrack(series.getSeriesId());
+        track(series);
+    }
+
+    @Override
+    public synchronized void onViewsUpdated(long seriesId, long newViews) {
+        if (reloading > 0) {
+            Change previous = changes.get(seriesId);
+            Series known = previous != null && previous.series != null ? previous.series : byId.get(seriesId);
+            recordChange(seriesId, known != null ? withViews(known, newViews)
+                    : new Series(seriesId, null, null, null, newViews));
+        }
+        if (!ready) {
+            return;
+        }
+        boolean wasLoading = loading.contains(seriesId);
+        Series old = untrack(seriesId);
+        if (old != null) {
+            if (track(withViews(old, newViews)) && wasLoading) {
+                loading.add(seriesId);
+            }
+            return;
+        }
+        if (floor == null) {
+            // all series are tracked, this one was inserted by someone else and will come with reconcile
+            return;
+        }
+        trackAndLoad(new Series(seriesId, null, null, null, newViews));
+    }
+
+    @Override
+    public synchronized void onDeleted(long seriesId) {
+        recordChange(seriesId, null);
+        untrack(seriesId);
+    }
+
+    @Override
+    public void onReset() {
+        synchronized (this) {
+            generation++;
+            top.clear();
+            byId.clear();
+            loading.clear();
+            floor = null;
+            ready = false;
+        }
+        reconcile();
+    }
+
+    @Override
+    public void close() {
+        if (reconcileTask != null) {
+            reconcileTask.cancel(false);
+        }
+    }
+
+    private void recordChange(long seriesId, Series series) {
+        if (reloading > 0) {
+            changes.put(seriesId, new Change(++changeVersion, series));
+        }
+    }
+
+    /**
+     * Replaces the top with the reloaded one, series changed after the reload started are taken from changes
+     */
+    private void reload(List<Series> list, long startVersion) {
+        Map<Long, Series> previous = new HashMap<>(byId);
+        Set<Long> wasLoading = new HashSet<>(loading);
+        Map<Long, Series> loaded = new HashMap<>();
+        top.clear();
+        byId.clear();
+        loading.clear();
+        for (Series series : list) {
+            loaded.put(series.getSeriesId(), series);
+            Change change = changes.get(series.getSeriesId());
+            if (change == null || change.version <= startVersion) {
+                top.add(series);
+                byId.put(series.getSeriesId(), series);
+            }
+        }
+        floor = list.size() < capacity ? null : list.get(list.size() - 1);
+        ready = true;
+
+        for (Map.Entry<Long, Change> entry : changes.entrySet()) {
+            long seriesId = entry.getKey();
+            Series latest = entry.getValue().series;
+            if (entry.getValue().version <= startVersion || latest == null) {
+                continue;
+            }
+            if (latest.getTitle() == null) {
+                // only views are known, take the rest from the reloaded or the previous top
+                Series known = loaded.containsKey(seriesId) ? loaded.get(seriesId) : previous.get(seriesId);
+                if (known != null && known.getTitle() != null) {
+                    latest = withViews(known, latest.getViews());
+                }
+            }
+            if (latest.getTitle() != null) {
+                track(latest);
+            } else if (wasLoading.contains(seriesId)) {
+                // the request started for the placeholder will complete it
+                if (track(latest)) {
+                    loading.add(seriesId);
+                }
+            } else {
+                trackAndLoad(latest);
+            }
+        }
+    }
+
+    /**
+     * Tracks the placeholder with known views and loads the rest of the series if it ranks above the floor
+     */
+    private void trackAndLoad(Series placeholder) {
+        long seriesId = placeholder.getSeriesId();
+        if (track(placeholder)) {
+            loading.add(seriesId);
+            long startGeneration = generation;
+            repository.findByIdAsync(seriesId).whenComplete((series, th) -> onLoaded(startGeneration, seriesId, series));
+        }
+    }
+
+    private static Series withViews(Series series, long views) {
+        return new Series(series.getSeriesId(), series.getTitle(), series.getSeriesInfo(), series.getReleaseDate(),
+                views);
+    }
+
+    private synchronized void onLoaded(long startGeneration, long seriesId, Series series) {
+        if (startGeneration != generation || !loading.remove(seriesId)) {
+            return;
+        }
+        Series placeholder = untrack(seriesId);
+        if (series == null || placeholder == null) {
+            // deleted or evicted while loading
+            return;
+        }
+        track(withViews(series, placeholder.getViews()));
+    }
+
+    /**
+     * Adds the series if it ranks above the floor, evicts the last series if the top is full
+     */
+    private boolean track(Series series) {
+        if (floor != null && ORDER.compare(series, floor) >= 0) {
+            return false;
+        }
+        top.add(series);
+        byId.put(series.getSeriesId(), series);
+        if (top.size() > capacity) {
+            Series last = top.pollLast();
+            byId.remove(last.getSeriesId());
+            loading.remove(last.getSeriesId());
+            floor = last;
+        }
+        return byId.containsKey(series.getSeriesId());
+    }
+
+    private Series untrack(long seriesId) {
+        Series old = byId.remove(seriesId);
+        if (old != null) {
+            top.remove(old);
+            loading.remove(seriesId);
+        }
+        return old;
+    }
+}
@@ -0,0 +1,154 @@
+package tech.ydb.examples.indexes.load;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * Runs asynchronous operations with adaptive concurrency. The window of operations in flight grows by one per
+ * window of completed operations while latency stays close to the best observed one, and is halved when an
+ * operation fails or its latency grows more than twice, which means the cluster is overloaded or the operation
+ * was retried. Operations complete in any order, a new one is started as soon as the window allows.
+ */
+public class AimdLoad {
+    private static final double OVERLOAD_LATENCY_FACTOR = 2.0;
+    private static final double DECREASE_FACTOR = 0.5;
+
+    private final int maxLimit;
+    private final int count;
+    private final IntFunction<CompletableFuture<Boolean>> operation;
+    private final CompletableFuture<LoadStats> result = new CompletableFuture<>();
+
+    /** Requests to start operations, only the thread which made the first one starts them */
+    private final AtomicInteger pumpRequests = new AtomicInteger();
+
+    private final long[] latencies;
+    private int errors = 0;
+    private int nextIdx = 0;
+    private int inFlight = 0;
+    private int completed = 0;
+    private double limit;
+    private int peakLimit;
+    private long minLatencyNanos = Long.MAX_VALUE;
+    /** Operations started before this index can't decrease the limit again */
+    private int decreaseFence = 0;
+    private long startedAt;
+
+    private AimdLoad(int initialLimit, int maxLimit, int count, IntFunction<CompletableFuture<Boolean>> operation) {
+        if (initialLimit <= 0 || maxLimit < initialLimit) {
+            throw new IllegalArgumentException("Invalid limits " + initialLimit + ".." + maxLimit);
+        }
+        this.maxLimit = maxLimit;
+        this.count = count;
+        this.operation = operation;
+        this.latencies = new long[count];
+        this.limit = initialLimit;
+        this.peakLimit = initialLimit;
+    }
+
+    /**
+     * Runs count operations, operation returns false or fails if it was not successful
+     */
+    public static AimdLoad run(int initialLimit, int maxLimit, int count,
+            IntFunction<CompletableFuture<Boolean>> operation) {
+        AimdLoad load = new AimdLoad(initialLimit, maxLimit, count, operation);
+        load.start();
+        return load;
+    }
+
+    public CompletableFuture<LoadStats> result() {
+        return result;
+    }
+
+    public synchronized int currentLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int peakLimit() {
+        return peakLimit;
+    }
+
+    private void start() {
+        synchronized (this) {
+            startedAt = System.nanoTime();
+            if (count == 0) {
+                result.complete(new LoadStats(latencies, 0, 0));
+                return;
+            }
+        }
+        pump();
+    }
+
+    /**
+     * Starts operations allowed by the window. Operations may complete synchronously and call it again, so it
+     * loops instead of recursing: a nested call only asks the running loop for one more pass.
+     */
+    private void pump() {
+        if (pumpRequests.getAndIncrement() != 0) {
+            return;
+        }
+        int requests = 1;
+        do {
+            startAllowed();
+            requests = pumpRequests.addAndGet(-requests);
+        } while (requests != 0);
+    }
+
+    private void startAllowed() {
+        while (true) {
+            int idx;
+            synchronized (this) {
+                if (nextIdx >= count || inFlight >= (int) limit) {
+                    return;
+                }
+                idx = nextIdx++;
+                inFlight++;
+            }
+
+            long opStartedAt = System.nanoTime();
+            CompletableFuture<Boolean> future;
+            try {
+                future = operation.apply(idx);
+            } catch (RuntimeException e) {
+                future = new CompletableFuture<>();
+                future.completeExceptionally(e);
+            }
+            future.whenComplete((success, th) -> {
+                onComplete(idx, System.nanoTime() - opStartedAt, th == null && Boolean.TRUE.equals(success));
+                pump();
+            });
+        }
+    }
+
+    private synchronized void onComplete(int idx, long latency, boolean success) {
+        latencies[idx] = latency;
+        inFlight--;
+        completed++;
+        if (!success) {
+            errors++;
+        }
+        if (success) {
+            minLatencyNanos = Math.min(minLatencyNanos, latency);
+        }
+
+        boolean overloaded = !success || latency > minLatencyNanos * OVERLOAD_LATENCY_FACTOR;
+        if (overloaded) {
+            // one decrease per window, operations of the same window are slow for the same reason
+            if (idx >= decreaseFence) {
+                limit = Math.max(1, limit * DECREASE_FACTOR);
+                decreaseFence = nextIdx;
+            }
+        } else {
+            limit = Math.min(maxLimit, limit + 1 / limit);
+            peakLimit = Math.max(peakLimit, (int) limit);
+        }
+
+        if (completed == count) {
+            long elapsed = System.nanoTime() - startedAt;
+            long[] sorted = latencies.clone();
+            Arrays.sort(sorted);
+            result.complete(new LoadStats(sorted, errors, elapsed));
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package tech.ydb.examples.indexes.load;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * Runs asynchronous operations with fixed concurrency and collects their latencies
+ */
+public class LoadStats {
+    private final long[] latencies;
+    private final int errors;
+    private final long elapsedNanos;
+
+    LoadStats(long[] latencies, int errors, long elapsedNanos) {
+        this.latencies = latencies;
+        this.errors = errors;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Runs count operations, an operation is an error if it fails or completes with false
+     */
+    public static LoadStats run(int count, int concurrency, IntFunction<CompletableFuture<?>> operation) {
+        long[] latencies = new long[count];
+        AtomicInteger errors = new AtomicInteger();
+        Semaphore window = new Semaphore(concurrency);
+
+        long startedAt = System.nanoTime();
+        for (int idx = 0; idx < count; idx++) {
+            window.acquireUninterruptibly();
+            int opIdx = idx;
+            long opStartedAt = System.nanoTime();
+            operation.apply(idx).whenComplete((result, th) -> {
+                latencies[opIdx] = System.nanoTime() - opStartedAt;
+                if (th != null || Boolean.FALSE.equals(result)) {
+                    errors.incrementAndGet();
+                }
+                window.release();
+            });
+        }
+        window.acquireUninterruptibly(concurrency);
+        long elapsed = System.nanoTime() - startedAt;
+
+        Arrays.sort(latencies);
+        return new LoadStats(latencies, errors.get(), elapsed);
+    }
+
+    public int count() {
+        return latencies.length;
+    }
+
+    public int errors() {
+        return errors;
+    }
+
+    public double elapsedSeconds() {
+        return elapsedNanos / 1e9;
+    }
+
+    public double opsPerSecond() {
+        return latencies.length * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    public double percentileMillis(double percentile) {
+        if (latencies.length == 0) {
+            return 0;
+        }
+        int idx = (int) Math.min(latencies.length - 1, Math.ceil(percentile / 100 * latencies.length) - 1);
+        return latencies[Math.max(idx, 0)] / 1e6;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%10.1f ops/s  p50 %8.2f ms  p99 %8.2f ms  errors %d",
+                opsPerSecond(), percentileMillis(50), percentileMillis(99), errors);
+    }
+}
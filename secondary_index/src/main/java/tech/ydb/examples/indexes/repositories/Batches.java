@@ -0,0 +1,80 @@
+package tech.ydb.examples.indexes.repositories;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Helpers to split big requests into chunks and to run them with bounded parallelism.
+ */
+public final class Batches {
+    private Batches() { }
+
+    public static <T> List<List<T>> split(List<T> items, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive, but was " + chunkSize);
+        }
+        List<List<T>> chunks = new ArrayList<>((items.size() + chunkSize - 1) / chunkSize);
+        for (int from = 0; from < items.size(); from += chunkSize) {
+            chunks.add(items.subList(from, Math.min(from + chunkSize, items.size())));
+        }
+        return chunks;
+    }
+
+    /**
+     * Runs action for every task, keeping at most maxConcurrency actions in flight. Results are returned in order
+     * of tasks. The returned future fails with the first failure, after that no new actions are started.
+     */
+    public static <T, R> CompletableFuture<List<R>> runBounded(
+            List<T> tasks, int maxConcurrency, Function<T, CompletableFuture<R>> action) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency must be positive, but was " + maxConcurrency);
+        }
+        CompletableFuture<List<R>> result = new CompletableFuture<>();
+        if (tasks.isEmpty()) {
+            result.complete(new ArrayList<>());
+            return result;
+        }
+
+        Object[] values = new Object[tasks.size()];
+        AtomicInteger nextTask = new AtomicInteger();
+        AtomicInteger completed = new AtomicInteger();
+        for (int lane = 0; lane < Math.min(maxConcurrency, tasks.size()); lane++) {
+            runNext(tasks, action, values, nextTask, completed, result);
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T, R> void runNext(List<T> tasks, Function<T, CompletableFuture<R>> action, Object[] values,
+            AtomicInteger nextTask, AtomicInteger completed, CompletableFuture<List<R>> result) {
+        int idx = nextTask.getAndIncrement();
+        if (idx >= tasks.size() || result.isDone()) {
+            return;
+        }
+
+        CompletableFuture<R> future;
+        try {
+            future = action.apply(tasks.get(idx));
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+            return;
+        }
+
+        future.whenComplete((value, th) -> {
+            if (th != null) {
+                result.completeExceptionally(th);
+                return;
+            }
+            values[idx] = value;
+            if (completed.incrementAndGet() == tasks.size()) {
+                result.complete((List<R>) Arrays.asList(values));
+                return;
+            }
+            runNext(tasks, action, values, nextTask, completed, result);
+        });
+    }
+}
@@ -0,0 +1,80 @@
+package tech.ydb.examples.indexes.repositories;
+
+import java.util.Collections;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+
+import tech.ydb.examples.indexes.QueryTemplate;
+import tech.ydb.table.TableClient;
+import tech.ydb.table.description.TableDescription;
+
+/**
+ * Series repository which uses server side global indexes on views and release_date instead of manually
+ * maintained series_rev_views and series_release_dates tables. Writes touch only series table, the indexes are
+ * updated by YDB synchronously in the same transaction or asynchronously in background.
+ */
+public class GlobalIndexSeriesRepository extends SeriesRepository {
+    private static final String VIEWS_INDEX = "views_index";
+    private static final String RELEASE_DATE_INDEX = "release_date_index";
+
+    private final boolean asyncIndex;
+
+    public GlobalIndexSeriesRepository(TableClient tableClient, String tablePrefix, boolean asyncIndex) {
+        this(tableClient, tablePrefix, asyncIndex, Metrics.globalRegistry);
+    }
+
+    public GlobalIndexSeriesRepository(TableClient tableClient, String tablePrefix, boolean asyncIndex,
+            MeterRegistry meterRegistry) {
+        super(tableClient, tablePrefix, meterRegistry);
+        this.asyncIndex = asyncIndex;
+    }
+
+    @Override
+    public void dropTables() {
+        retryCtx.supplyStatus(session -> session.dropTable(tablePrefix + "series")).join();
+        retryCtx.supplyStatus(session -> session.dropTable(tablePrefix + "series_title_trigrams")).join();
+        fireReset();
+    }
+
+    @Override
+    public void createTables() {
+        TableDescription.Builder builder = seriesTable();
+        if (asyncIndex) {
+            builder.addGlobalAsyncIndex(VIEWS_INDEX, Collections.singletonList("views"));
+            builder.addGlobalAsyncIndex(RELEASE_DATE_INDEX, Collections.singletonList("release_date"));
+        } else {
+            builder.addGlobalIndex(VIEWS_INDEX, Collections.singletonList("views"));
+            builder.addGlobalIndex(RELEASE_DATE_INDEX, Collections.singletonList("release_date"));
+        }
+        createTable("series", builder);
+        createTable("series_title_trigrams", titleTrigramsTable());
+        fireReset();
+    }
+
+    @Override
+    protected QueryTemplate resolveTemplate(QueryTemplate query) {
+        switch (query) {
+            case SERIES_INSERT:
+                return QueryTemplate.SERIES_GI_INSERT;
+            case SERIES_INSERT_BATCH:
+                return QueryTemplate.SERIES_GI_INSERT_BATCH;
+            case SERIES_DELETE:
+                return QueryTemplate.SERIES_GI_DELETE;
+            case SERIES_UPDATE_VIEWS:
+                return QueryTemplate.SERIES_GI_UPDATE_VIEWS;
+            case SERIES_UPDATE_VIEWS_BATCH:
+                return QueryTemplate.SERIES_GI_UPDATE_VIEWS_BATCH;
+            case SERIES_ADD_VIEWS_BATCH:
+                return QueryTemplate.SERIES_GI_ADD_VIEWS_BATCH;
+            case SERIES_FIND_MOST_VIEWED:
+                return QueryTemplate.SERIES_GI_FIND_MOST_VIEWED;
+            case SERIES_FIND_MOST_VIEWED_NEXT:
+                return QueryTemplate.SERIES_GI_FIND_MOST_VIEWED_NEXT;
+            case SERIES_FIND_BY_RELEASE_DATE:
+                return QueryTemplate.SERIES_GI_FIND_BY_RELEASE_DATE;
+            default:
+                return query;
+        }
+    }
+}
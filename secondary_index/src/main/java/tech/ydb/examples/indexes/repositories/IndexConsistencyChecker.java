@@ -0,0 +1,383 @@
+package tech.ydb.examples.indexes.repositories;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import tech.ydb.auth.TokenAuthProvider;
+import tech.ydb.core.Result;
+import tech.ydb.core.grpc.GrpcTransport;
+import tech.ydb.core.grpc.GrpcTransportBuilder;
+import tech.ydb.examples.indexes.QueryTemplate;
+import tech.ydb.table.TableClient;
+import tech.ydb.table.description.KeyBound;
+import tech.ydb.table.description.KeyRange;
+import tech.ydb.table.description.TableDescription;
+import tech.ydb.table.query.Params;
+import tech.ydb.table.result.ResultSetReader;
+import tech.ydb.table.settings.DescribeTableSettings;
+import tech.ydb.table.settings.ReadTableSettings;
+import tech.ydb.table.values.ListValue;
+import tech.ydb.table.values.PrimitiveType;
+import tech.ydb.table.values.PrimitiveValue;
+import tech.ydb.table.values.StructValue;
+import tech.ydb.table.values.TupleValue;
+import tech.ydb.table.values.Value;
+
+/**
+ * Finds and optionally repairs differences between series and manually maintained series_rev_views.
+ * <p>
+ * Tables have different primary keys, so their streams can't be merged without sorting one of them. Instead both
+ * tables are read by pages in primary key order, every partition is read independently and in parallel, and every
+ * page is checked by one snapshot query which looks up the matching rows of the other table by primary key.
+ * A table with fewer partitions than the concurrency is split into even ranges of its first key column between the
+ * least and the greatest values instead, so a table of one partition is read in parallel too:
+ * <ul>
+ *   <li>a series without index row for its current views has a missing index row</li>
+ *   <li>an index row without series or with other views of the series is orphaned</li>
+ * </ul>
+ * Both tables are read once and lookups hit primary keys only, so the time grows linearly with the size of tables
+ * and goes down with concurrency. Repair queries check rows again in their own transactions, so they are safe to
+ * run together with the application.
+ *
+ * <pre>
+ *   java -cp ... tech.ydb.examples.indexes.repositories.IndexConsistencyChecker ENDPOINT DATABASE PREFIX \
+ *       [CONCURRENCY] [REPAIR_BATCHES_PER_SECOND]
+ * </pre>
+ */
+public class IndexConsistencyChecker {
+    private static final Logger logger = LoggerFactory.getLogger(IndexConsistencyChecker.class);
+
+    public static final class Report {
+        private final AtomicLong seriesRows = new AtomicLong();
+        private final AtomicLong indexRows = new AtomicLong();
+        private final AtomicLong missing = new AtomicLong();
+        private final AtomicLong orphaned = new AtomicLong();
+        private final AtomicLong repairBatches = new AtomicLong();
+        private final AtomicLong failedRepairBatches = new AtomicLong();
+
+        public long seriesRows() {
+            return seriesRows.get();
+        }
+
+        public long indexRows() {
+            return indexRows.get();
+        }
+
+        public long missing() {
+            return missing.get();
+        }
+
+        public long orphaned() {
+            return orphaned.get();
+        }
+
+        public long failedRepairBatches() {
+            return failedRepairBatches.get();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("series %d, index rows %d, missing %d, orphaned %d, repair batches %d (failed %d)",
+                    seriesRows.get(), indexRows.get(), missing.get(), orphaned.get(),
+                    repairBatches.get(), failedRepairBatches.get());
+        }
+    }
+
+    private final SeriesRepository repository;
+    private final ScheduledExecutorService scheduler;
+    private final int concurrency;
+    private final int pageSize;
+    private final boolean repair;
+    private final long repairIntervalNanos;
+
+    private final Report report = new Report();
+    private long nextRepairNanos = System.nanoTime();
+
+    /**
+     * @param repository repository of series in manual index mode
+     * @param scheduler scheduler used to delay repair batches
+     * @param concurrency count of key ranges read at the same time
+     * @param pageSize count of rows read and checked at once
+     * @param repairBatchesPerSecond rate of repair transactions, zero disables repair
+     */
+    public IndexConsistencyChecker(SeriesRepository repository, ScheduledExecutorService scheduler,
+            int concurrency, int pageSize, double repairBatchesPerSecond) {
+        this.repository = repository;
+        this.scheduler = scheduler;
+        this.concurrency = concurrency;
+        this.pageSize = pageSize;
+        this.repair = repairBatchesPerSecond > 0;
+        this.repairIntervalNanos = repair ? (long) (TimeUnit.SECONDS.toNanos(1) / repairBatchesPerSecond) : 0;
+    }
+
+    public CompletableFuture<Report> run() {
+        CompletableFuture<Void> series = scanTable("series", new String[] { "series_id" },
+                QueryTemplate.SERIES_CHECK_SERIES_KEY_BOUNDS, this::checkSeriesPage);
+        CompletableFuture<Void> index = scanTable("series_rev_views", new String[] { "rev_views", "series_id" },
+                QueryTemplate.SERIES_CHECK_INDEX_KEY_BOUNDS, this::checkIndexPage);
+        return CompletableFuture.allOf(series, index).thenApply(v -> report);
+    }
+
+    private CompletableFuture<Void> checkSeriesPage(List<long[]> keys) {
+        report.seriesRows.addAndGet(keys.size());
+        Value<?>[] ids = new Value<?>[keys.size()];
+        for (int idx = 0; idx < ids.length; idx++) {
+            ids[idx] = StructValue.of("series_id", PrimitiveValue.newUint64(keys.get(idx)[0]));
+        }
+        Params params = Params.of("$ids", ListValue.of(ids));
+
+        return query(QueryTemplate.SERIES_CHECK_MISSING_INDEX, params).thenCompose(resultSet -> {
+            List<Value<?>> missing = new ArrayList<>();
+            while (resultSet.next()) {
+                long seriesId = resultSet.getColumn(0).getUint64();
+                logger.info("series {} has no index row", seriesId);
+                missing.add(StructValue.of("series_id", PrimitiveValue.newUint64(seriesId)));
+            }
+            report.missing.addAndGet(missing.size());
+            if (!repair || missing.isEmpty()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            return repairBatch(QueryTemplate.SERIES_REPAIR_MISSING_INDEX, Params.of("$ids", listOf(missing)));
+        });
+    }
+
+    private CompletableFuture<Void> checkIndexPage(List<long[]> keys) {
+        report.indexRows.addAndGet(keys.size());
+        Value<?>[] items = new Value<?>[keys.size()];
+        for (int idx = 0; idx < items.length; idx++) {
+            items[idx] = StructValue.of(
+                    "rev_views", PrimitiveValue.newUint64(keys.get(idx)[0]),
+                    "series_id", PrimitiveValue.newUint64(keys.get(idx)[1]));
+        }
+        Params params = Params.of("$keys", ListValue.of(items));
+
+        return query(QueryTemplate.SERIES_CHECK_ORPHANED_INDEX, params).thenCompose(resultSet -> {
+            List<Value<?>> orphaned = new ArrayList<>();
+            while (resultSet.next()) {
+                long revViews = resultSet.getColumn(0).getUint64();
+                long seriesId = resultSet.getColumn(1).getUint64();
+                logger.info("index row ({}, {}) is orphaned", Long.toUnsignedString(revViews), seriesId);
+                orphaned.add(StructValue.of(
+                        "rev_views", PrimitiveValue.newUint64(revViews),
+                        "series_id", PrimitiveValue.newUint64(seriesId)));
+            }
+            report.orphaned.addAndGet(orphaned.size());
+            if (!repair || orphaned.isEmpty()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            return repairBatch(QueryTemplate.SERIES_REPAIR_ORPHANED_INDEX, Params.of("$keys", listOf(orphaned)));
+        });
+    }
+
+    private CompletableFuture<ResultSetReader> query(QueryTemplate template, Params params) {
+        return repository.execute(template, params)
+                .thenApply(Result::getValue)
+                .thenApply(result -> result.getResultSet(0));
+    }
+
+    private CompletableFuture<Void> repairBatch(QueryTemplate template, Params params) {
+        return rateLimit().thenCompose(v -> repository.execute(template, params))
+                .thenAccept(result -> {
+                    report.repairBatches.incrementAndGet();
+                    if (!result.isSuccess()) {
+                        report.failedRepairBatches.incrementAndGet();
+                        logger.warn("repair batch failed: {}", result.getStatus());
+                    }
+                });
+    }
+
+    /**
+     * Completes when the next repair batch is allowed
+     */
+    private CompletableFuture<Void> rateLimit() {
+        long delay;
+        synchronized (this) {
+            long now = System.nanoTime();
+            if (nextRepairNanos - now < 0) {
+                nextRepairNanos = now;
+            }
+            delay = nextRepairNanos - now;
+            nextRepairNanos += repairIntervalNanos;
+        }
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        if (delay <= 0) {
+            future.complete(null);
+        } else {
+            scheduler.schedule(() -> future.complete(null), delay, TimeUnit.NANOSECONDS);
+        }
+        return future;
+    }
+
+    private CompletableFuture<Void> scanTable(String table, String[] keyColumns, QueryTemplate keyBounds,
+            Function<List<long[]>, CompletableFuture<Void>> checkPage) {
+        String path = repository.tablePrefix + table;
+        DescribeTableSettings settings = new DescribeTableSettings();
+        settings.setIncludeShardKeyBounds(true);
+        return repository.retryCtx.supplyResult(session -> session.describeTable(path, settings))
+                .thenApply(Result::getValue)
+                .thenCompose(description -> {
+                    List<KeyRange> partitions = keyRanges(description);
+                    if (partitions.size() >= concurrency) {
+                        return CompletableFuture.completedFuture(partitions);
+                    }
+                    return repository.execute(keyBounds, Params.empty())
+                            .thenApply(Result::getValue)
+                            .thenApply(result -> splitByFirstKey(result.getResultSet(0), result.getResultSet(1),
+                                    keyColumns.length, partitions));
+                })
+                .thenCompose(ranges -> {
+                    logger.info("checking {} key ranges of {}", ranges.size(), table);
+                    return Batches.runBounded(ranges, concurrency,
+                            range -> scanRange(path, keyColumns, range, null, checkPage));
+                })
+                .thenApply(results -> null);
+    }
+
+    private static List<KeyRange> keyRanges(TableDescription description) {
+        List<KeyRange> ranges = description.getKeyRanges();
+        if (ranges == null || ranges.isEmpty()) {
+            return Collections.singletonList(new KeyRange(Optional.empty(), Optional.empty()));
+        }
+        return ranges;
+    }
+
+    /**
+     * Splits the table into concurrency ranges of equal width of the first key column, which are even if keys are
+     * spread evenly between the least and the greatest ones
+     *
+     * @param first result set with the least value of the first key column, empty if the table is empty
+     * @param last result set with the greatest value of the first key column
+     * @param partitions ranges returned if the table can't be split
+     */
+    private List<KeyRange> splitByFirstKey(ResultSetReader first, ResultSetReader last, int keyLength,
+            List<KeyRange> partitions) {
+        if (!first.next() || !last.next()) {
+            return partitions;
+        }
+        long from = first.getColumn(0).getUint64();
+        long step = Long.divideUnsigned(last.getColumn(0).getUint64() - from, concurrency);
+        if (step == 0) {
+            return partitions;
+        }
+
+        List<KeyRange> ranges = new ArrayList<>(concurrency);
+        Optional<KeyBound> previous = Optional.empty();
+        for (int idx = 1; idx < concurrency; idx++) {
+            TupleValue bound = boundOf(from + step * idx, keyLength);
+            ranges.add(new KeyRange(previous, Optional.of(KeyBound.exclusive(bound))));
+            previous = Optional.of(KeyBound.inclusive(bound));
+        }
+        ranges.add(new KeyRange(previous, Optional.empty()));
+        return ranges;
+    }
+
+    /**
+     * Key with the first column set and NULL in the rest, NULL is the least value, so it bounds all keys which
+     * start with the value
+     */
+    private static TupleValue boundOf(long firstColumn, int keyLength) {
+        List<Value<?>> values = new ArrayList<>(keyLength);
+        values.add(PrimitiveValue.newUint64(firstColumn).makeOptional());
+        while (values.size() < keyLength) {
+            values.add(PrimitiveType.Uint64.makeOptional().emptyValue());
+        }
+        return TupleValue.of(values);
+    }
+
+    /**
+     * Reads the key range page by page, the next page is read after the previous one is checked
+     */
+    private CompletableFuture<Void> scanRange(String path, String[] keyColumns, KeyRange range, TupleValue after,
+            Function<List<long[]>, CompletableFuture<Void>> checkPage) {
+        ReadTableSettings.Builder settings = ReadTableSettings.newBuilder()
+                .orderedRead(true)
+                .rowLimit(pageSize)
+                .columns(keyColumns);
+        if (after != null) {
+            settings.fromKeyExclusive(after);
+        } else if (range.getFrom().isPresent()) {
+            KeyBound from = range.getFrom().get();
+            settings.fromKey((TupleValue) from.getValue(), from.isInclusive());
+        }
+        if (range.getTo().isPresent()) {
+            KeyBound to = range.getTo().get();
+            settings.toKey((TupleValue) to.getValue(), to.isInclusive());
+        }
+
+        List<long[]> keys = new ArrayList<>(pageSize);
+        return repository.retryCtx.supplyStatus(session -> {
+            keys.clear();
+            return session.executeReadTable(path, settings.build()).start(part -> {
+                ResultSetReader resultSet = part.getResultSetReader();
+                while (resultSet.next()) {
+                    long[] key = new long[keyColumns.length];
+                    for (int idx = 0; idx < key.length; idx++) {
+                        key[idx] = resultSet.getColumn(idx).getUint64();
+                    }
+                    keys.add(key);
+                }
+            });
+        }).thenCompose(status -> {
+            status.expectSuccess("read of " + path + " failed");
+            if (keys.isEmpty()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            TupleValue last = toTuple(keys.get(keys.size() - 1));
+            return checkPage.apply(keys).thenCompose(v -> keys.size() < pageSize
+                    ? CompletableFuture.completedFuture(null)
+                    : scanRange(path, keyColumns, range, last, checkPage));
+        });
+    }
+
+    /** Key columns are nullable, so key tuples consist of optional values */
+    private static TupleValue toTuple(long[] key) {
+        List<Value<?>> values = new ArrayList<>(key.length);
+        for (long column : key) {
+            values.add(PrimitiveValue.newUint64(column).makeOptional());
+        }
+        return TupleValue.of(values);
+    }
+
+    private static ListValue listOf(List<Value<?>> items) {
+        return ListValue.of(items.toArray(new Value<?>[0]));
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.err.println("Usage: IndexConsistencyChecker ENDPOINT DATABASE PREFIX "
+                    + "[CONCURRENCY] [REPAIR_BATCHES_PER_SECOND]");
+            return;
+        }
+        int concurrency = args.length > 3 ? Integer.parseInt(args[3]) : 32;
+        double repairRate = args.length > 4 ? Double.parseDouble(args[4]) : 0;
+
+        GrpcTransportBuilder builder = GrpcTransport.forEndpoint(args[0], args[1]);
+        String token = System.getenv("YDB_TOKEN");
+        if (token != null && !token.isEmpty()) {
+            builder.withAuthProvider(new TokenAuthProvider(token));
+        }
+
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try (GrpcTransport transport = builder.build();
+             TableClient tableClient = TableClient.newClient(transport).sessionPoolSize(0, concurrency * 2).build()) {
+            SeriesRepository repository = new SeriesRepository(tableClient, args[2]);
+            long startedAt = System.nanoTime();
+            Report report = new IndexConsistencyChecker(repository, scheduler, concurrency,
+                    SeriesRepository.DEFAULT_BATCH_SIZE, repairRate).run().join();
+            System.out.printf("%s in %.1f s%n", report, (System.nanoTime() - startedAt) / 1e9);
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+}
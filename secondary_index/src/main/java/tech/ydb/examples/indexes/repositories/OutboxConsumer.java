@@ -0,0 +1,156 @@
+package tech.ydb.examples.indexes.repositories;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import tech.ydb.core.Result;
+import tech.ydb.examples.indexes.QueryTemplate;
+import tech.ydb.table.query.Params;
+import tech.ydb.table.result.ResultSetReader;
+import tech.ydb.table.result.ValueReader;
+import tech.ydb.table.values.PrimitiveType;
+import tech.ydb.table.values.PrimitiveValue;
+
+/**
+ * Applies changes saved to series_outbox by {@link OutboxSeriesRepository} to series_rev_views.
+ * <p>
+ * Every poll is a pass over the outbox in order of series id. Every batch is one transaction which moves index rows
+ * of the batch from the indexed views to the current views of the series and removes the batch from the outbox, so
+ * batches are idempotent and many changes of one series between polls cost one index update. Only one pass runs at
+ * a time.
+ * <p>
+ * Index lag, the age of the oldest change still in the outbox, is exported as {@code ydb.series.outbox.lag}. The
+ * oldest change is read before and after every pass and the age is computed when the gauge is read, so the lag
+ * keeps growing while passes fail or hang. If the outbox was empty at the last read, a failed or hanging pass is
+ * assumed to leave changes pending since that read.
+ */
+public class OutboxConsumer implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(OutboxConsumer.class);
+
+    private final SeriesRepository repository;
+    private final int batchSize;
+    private final AtomicBoolean passInFlight = new AtomicBoolean();
+    /** Creation time of the oldest change which may be not applied, null if the outbox is empty */
+    private final AtomicReference<Instant> pendingSince = new AtomicReference<>();
+    private volatile Instant emptySince = Instant.now();
+    private final Counter applied;
+
+    private ScheduledFuture<?> pollTask;
+
+    public OutboxConsumer(SeriesRepository repository, int batchSize, MeterRegistry meterRegistry) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive, but was " + batchSize);
+        }
+        this.repository = repository;
+        this.batchSize = batchSize;
+        this.applied = meterRegistry.counter("ydb.series.outbox.applied");
+        meterRegistry.gauge("ydb.series.outbox.lag", this, consumer -> consumer.lagMillis() / 1000.0);
+    }
+
+    public void start(ScheduledExecutorService scheduler, long pollIntervalMs) {
+        this.pollTask = scheduler.scheduleWithFixedDelay(
+                this::pollIfIdle, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Makes one pass over the outbox. Changes saved during the pass may be left for the next one.
+     *
+     * @return count of applied changes
+     */
+    public CompletableFuture<Long> applyPending() {
+        CompletableFuture<Long> pass = readOldestPending()
+                .thenCompose(ignored -> applyBatches(null, 0))
+                .thenCompose(count -> readOldestPending().thenApply(ignored -> count));
+        pass.whenComplete((count, th) -> {
+            if (th != null) {
+                assumePending();
+            }
+        });
+        return pass;
+    }
+
+    /** Age of the oldest change still in the outbox in milliseconds */
+    public long lagMillis() {
+        Instant since = pendingSince.get();
+        return since == null ? 0 : Math.max(0, Duration.between(since, Instant.now()).toMillis());
+    }
+
+    @Override
+    public void close() {
+        if (pollTask != null) {
+            pollTask.cancel(false);
+        }
+    }
+
+    private void pollIfIdle() {
+        if (!passInFlight.compareAndSet(false, true)) {
+            // the previous pass hangs longer than the poll interval
+            assumePending();
+            return;
+        }
+        applyPending().whenComplete((count, th) -> {
+            passInFlight.set(false);
+            if (th != null) {
+                logger.warn("Failed to apply series outbox, will retry", th);
+            } else if (count > 0) {
+                logger.debug("Applied {} changes of series views, lag {} ms", count, lagMillis());
+            }
+        });
+    }
+
+    private void assumePending() {
+        pendingSince.compareAndSet(null, emptySince);
+    }
+
+    private CompletableFuture<Void> readOldestPending() {
+        Instant readAt = Instant.now();
+        return repository.execute(QueryTemplate.SERIES_OUTBOX_OLDEST, Params.empty())
+                .thenApply(Result::getValue).thenAccept(result -> {
+                    ResultSetReader resultSet = result.getResultSet(0);
+                    ValueReader createdAt = resultSet.next() ? resultSet.getColumn("oldest_created_at") : null;
+                    if (createdAt != null && createdAt.isOptionalItemPresent()) {
+                        pendingSince.set(createdAt.getTimestamp());
+                    } else {
+                        emptySince = readAt;
+                        pendingSince.set(null);
+                    }
+                });
+    }
+
+    private CompletableFuture<Long> applyBatches(Long lastSeriesId, long total) {
+        Params params = Params.of(
+                "$limit", PrimitiveValue.newUint64(batchSize),
+                "$lastSeriesId", lastSeriesId != null
+                        ? PrimitiveValue.newUint64(lastSeriesId).makeOptional()
+                        : PrimitiveType.Uint64.makeOptional().emptyValue()
+        );
+        return repository.execute(QueryTemplate.SERIES_OUTBOX_APPLY, params)
+                .thenApply(Result::getValue).thenCompose(result -> {
+                    ResultSetReader resultSet = result.getResultSet(0);
+                    if (!resultSet.next()) {
+                        throw new IllegalStateException("Outbox batch stats were not returned");
+                    }
+                    long count = resultSet.getColumn("cnt").getUint64();
+                    if (count == 0) {
+                        return CompletableFuture.completedFuture(total);
+                    }
+                    applied.increment(count);
+                    if (count < batchSize) {
+                        return CompletableFuture.completedFuture(total + count);
+                    }
+                    long last = resultSet.getColumn("last_series_id").getUint64();
+                    return applyBatches(last, total + count);
+                });
+    }
+}
@@ -0,0 +1,60 @@
+package tech.ydb.examples.indexes.repositories;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+
+import tech.ydb.examples.indexes.QueryTemplate;
+import tech.ydb.table.TableClient;
+import tech.ydb.table.description.TableDescription;
+import tech.ydb.table.values.PrimitiveType;
+
+/**
+ * Series repository which doesn't update series_rev_views in transactions of writes. Every change of views is saved
+ * to series_outbox together with the views currently indexed, and {@link OutboxConsumer} applies changes to
+ * series_rev_views in background by batches. Writes become single-row upserts, the index lags behind the series.
+ */
+public class OutboxSeriesRepository extends SeriesRepository {
+    public OutboxSeriesRepository(TableClient tableClient, String tablePrefix) {
+        this(tableClient, tablePrefix, Metrics.globalRegistry);
+    }
+
+    public OutboxSeriesRepository(TableClient tableClient, String tablePrefix, MeterRegistry meterRegistry) {
+        super(tableClient, tablePrefix, meterRegistry);
+    }
+
+    @Override
+    public void dropTables() {
+        retryCtx.supplyStatus(session -> session.dropTable(tablePrefix + "series_outbox")).join();
+        super.dropTables();
+    }
+
+    @Override
+    public void createTables() {
+        createTable("series_outbox", TableDescription.newBuilder()
+                .addNullableColumn("series_id", PrimitiveType.Uint64)
+                .addNullableColumn("indexed_views", PrimitiveType.Uint64)
+                .addNullableColumn("created_at", PrimitiveType.Timestamp)
+                .setPrimaryKey("series_id"));
+        super.createTables();
+    }
+
+    @Override
+    protected QueryTemplate resolveTemplate(QueryTemplate query) {
+        switch (query) {
+            case SERIES_INSERT:
+                return QueryTemplate.SERIES_OB_INSERT;
+            case SERIES_INSERT_BATCH:
+                return QueryTemplate.SERIES_OB_INSERT_BATCH;
+            case SERIES_DELETE:
+                return QueryTemplate.SERIES_OB_DELETE;
+            case SERIES_UPDATE_VIEWS:
+                return QueryTemplate.SERIES_OB_UPDATE_VIEWS;
+            case SERIES_UPDATE_VIEWS_BATCH:
+                return QueryTemplate.SERIES_OB_UPDATE_VIEWS_BATCH;
+            case SERIES_ADD_VIEWS_BATCH:
+                return QueryTemplate.SERIES_OB_ADD_VIEWS_BATCH;
+            default:
+                return query;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package tech.ydb.examples.indexes.repositories;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import tech.ydb.examples.indexes.model.Series;
+
+/**
+ * Bounded cache of series read by id. Entries expire after ttl, the least recently used entry is evicted when the
+ * cache is full. Changes made through the repository update or remove cached entries, changes made by other
+ * applications become visible after ttl.
+ * <p>
+ * A series loaded from YDB is cached only if no change of series of the same version stripe was applied while it
+ * was loaded, so a slow read can't overwrite a newer value.
+ */
+public class SeriesCache implements SeriesListener {
+    private static final int VERSION_STRIPES = 256;
+
+    private static final class CachedSeries {
+        private final Series series;
+        private final long expiresAtNanos;
+
+        private CachedSeries(Series series, long expiresAtNanos) {
+            this.series = series;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+
+    private final long ttlNanos;
+    private final Map<Long, CachedSeries> entries;
+    private final Counter hits;
+    private final Counter misses;
+
+    /** Incremented by every change of series of the stripe, guarded by this */
+    private final long[] versions = new long[VERSION_STRIPES];
+
+    public SeriesCache(int maxSize, long ttlSeconds, MeterRegistry meterRegistry) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive, but was " + maxSize);
+        }
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.entries = new LinkedHashMap<Long, CachedSeries>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedSeries> eldest) {
+                return size() > maxSize;
+            }
+        };
+        this.hits = meterRegistry.counter("ydb.series.cache", "result", "hit");
+        this.misses = meterRegistry.counter("ydb.series.cache", "result", "miss");
+        meterRegistry.gauge("ydb.series.cache.size", this, SeriesCache::size);
+    }
+
+    /**
+     * @return cached series or null if it is not cached or expired
+     */
+    public synchronized Series get(long seriesId) {
+        CachedSeries entry = entries.get(seriesId);
+        if (entry != null && entry.expiresAtNanos - System.nanoTime() > 0) {
+            hits.increment();
+            return entry.series;
+        }
+        if (entry != null) {
+            entries.remove(seriesId);
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Version to pass to {@link #putLoaded(Series, long)}, must be taken before the read is started
+     */
+    public synchronized long version(long seriesId) {
+        return versions[stripe(seriesId)];
+    }
+
+    /**
+     * Caches series read from YDB, unless it could be changed after the read was started
+     */
+    public synchronized void putLoaded(Series series, long readVersion) {
+        if (versions[stripe(series.getSeriesId())] == readVersion) {
+            entries.put(series.getSeriesId(), new CachedSeries(series, System.nanoTime() + ttlNanos));
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    public synchronized void onInserted(Series series) {
+        versions[stripe(series.getSeriesId())]++;
+        entries.put(series.getSeriesId(), new CachedSeries(series, System.nanoTime() + ttlNanos));
+    }
+
+    @Override
+    public synchronized void onViewsUpdated(long seriesId, long newViews) {
+        versions[stripe(seriesId)]++;
+        CachedSeries entry = entries.get(seriesId);
+        if (entry != null) {
+            Series old = entry.series;
+            Series updated = new Series(
+                    seriesId, old.getTitle(), old.getSeriesInfo(), old.getReleaseDate(), newViews);
+            entries.put(seriesId, new CachedSeries(updated, entry.expiresAtNanos));
+        }
+    }
+
+    @Override
+    public synchronized void onDeleted(long seriesId) {
+        versions[stripe(seriesId)]++;
+        entries.remove(seriesId);
+    }
+
+    @Override
+    public synchronized void onReset() {
+        for (int idx = 0; idx < versions.length; idx++) {
+            versions[idx]++;
+        }
+        entries.clear();
+    }
+
+    private static int stripe(long seriesId) {
+        return Long.hashCode(seriesId) & (VERSION_STRIPES - 1);
+    }
+}
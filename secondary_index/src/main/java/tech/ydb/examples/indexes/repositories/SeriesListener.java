@@ -0,0 +1,18 @@
+package tech.ydb.examples.indexes.repositories;
+
+import tech.ydb.examples.indexes.model.Series;
+
+/**
+ * Receives changes made through {@link SeriesRepository}. Methods are called after the transaction is committed,
+ * from the thread which completed the YDB request, so they must not block.
+ */
+public interface SeriesListener {
+    void onInserted(Series series);
+
+    void onViewsUpdated(long seriesId, long newViews);
+
+    void onDeleted(long seriesId);
+
+    /** Tables were dropped or created, all known state is invalid */
+    void onReset();
+}
@@ -2,62 +2,196 @@ package tech.ydb.examples.indexes.repositories;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 
 import tech.ydb.core.Result;
+import tech.ydb.core.Status;
+import tech.ydb.core.StatusCode;
+import tech.ydb.core.grpc.GrpcReadStream;
+import tech.ydb.examples.indexes.CompiledQueries;
 import tech.ydb.examples.indexes.QueryTemplate;
 import tech.ydb.examples.indexes.model.Series;
-import tech.ydb.table.Session;
+import tech.ydb.examples.mapping.RowMapper;
 import tech.ydb.table.SessionRetryContext;
 import tech.ydb.table.TableClient;
 import tech.ydb.table.description.TableDescription;
 import tech.ydb.table.query.DataQueryResult;
 import tech.ydb.table.query.Params;
+import tech.ydb.table.query.ReadTablePart;
 import tech.ydb.table.result.ResultSetReader;
+import tech.ydb.table.settings.CreateTableSettings;
+import tech.ydb.table.settings.PartitioningSettings;
+import tech.ydb.table.settings.ReadTableSettings;
 import tech.ydb.table.transaction.TxControl;
+import tech.ydb.table.values.ListValue;
 import tech.ydb.table.values.PrimitiveType;
 import tech.ydb.table.values.PrimitiveValue;
+import tech.ydb.table.values.StructValue;
+import tech.ydb.table.values.Value;
 
 public class SeriesRepository {
-    private static final TableDescription TABLE_DESCRIPTION = TableDescription.newBuilder()
-            .addNullableColumn("series_id", PrimitiveType.Uint64)
-            .addNullableColumn("title", PrimitiveType.Text)
-            .addNullableColumn("series_info", PrimitiveType.Text)
-            .addNullableColumn("release_date", PrimitiveType.Uint32)
-            .addNullableColumn("views", PrimitiveType.Uint64)
-            .setPrimaryKey("series_id")
-            .build();
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    public static final int DEFAULT_BATCH_CONCURRENCY = 4;
 
-    private static final TableDescription TABLE_REV_INDEX_DESCRIPTION = TableDescription.newBuilder()
-            .addNullableColumn("rev_views", PrimitiveType.Uint64)
-            .addNullableColumn("series_id", PrimitiveType.Uint64)
-            .setPrimaryKeys("rev_views", "series_id")
+    /** Rows per query of paged reads, YDB truncates results of data queries to 1000 rows */
+    private static final int PAGE_SIZE = 1000;
+    /** Sub-ranges per concurrent query, more sub-ranges even out days with different count of series */
+    private static final int RELEASE_DATE_SUBRANGES_PER_QUERY = 4;
+
+    private static final RowMapper<Series> SERIES_MAPPER = RowMapper.builder(Series.class)
+            .column("series_id")
+            .column("title")
+            .column("series_info")
+            .column("release_date", LocalDate::ofEpochDay)
+            .column("views")
             .build();
 
-    private final String tablePrefix;
-    private final SessionRetryContext retryCtx;
+    /**
+     * Deltas of chunks which failed in {@link #addViewsBatchAsync}
+     */
+    public static final class AddViewsResult {
+        private final Map<Long, Long> notWritten = new HashMap<>();
+        private final Map<Long, Long> undetermined = new HashMap<>();
+
+        /**
+         * Deltas of chunks which are known not to be committed, they can be written again
+         */
+        public Map<Long, Long> notWritten() {
+            return notWritten;
+        }
+
+        /**
+         * Deltas of chunks which may be committed or not, writing them again may add them twice
+         */
+        public Map<Long, Long> undetermined() {
+            return undetermined;
+        }
+
+        public boolean isEmpty() {
+            return notWritten.isEmpty() && undetermined.isEmpty();
+        }
+    }
+
+    protected final String tablePrefix;
+    protected final SessionRetryContext retryCtx;
+    private final CompiledQueries queries;
+    private final MeterRegistry meterRegistry;
+    private final List<SeriesListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile TablePartitioning partitioning = TablePartitioning.DEFAULT;
+    private volatile SeriesCache cache;
+    private volatile SessionRetryContext readAllRetryCtx;
 
     public SeriesRepository(TableClient tableClient, String tablePrefix) {
+        this(tableClient, tablePrefix, Metrics.globalRegistry);
+    }
+
+    public SeriesRepository(TableClient tableClient, String tablePrefix, MeterRegistry meterRegistry) {
         if (!tablePrefix.endsWith("/")) {
             tablePrefix += "/";
         }
         this.tablePrefix = tablePrefix;
+        this.meterRegistry = meterRegistry;
         this.retryCtx = SessionRetryContext.create(tableClient).build();
+        this.readAllRetryCtx = retryCtx;
+        this.queries = CompiledQueries.forPrefix(tablePrefix);
+    }
+
+    /**
+     * Sets partitioning of tables created by {@link #createTables()}
+     */
+    public void setPartitioning(TablePartitioning partitioning) {
+        this.partitioning = partitioning;
+    }
+
+    /**
+     * Makes {@link #findByIdAsync(long)} read through the cache. Changes made by the repository are applied to it.
+     */
+    public void setCache(SeriesCache cache) {
+        addListener(cache);
+        this.cache = cache;
+    }
+
+    /**
+     * Makes {@link #readAllAsync(Consumer)} use a separate table client. The consumer of the read runs in the call
+     * executor of the client's transport and may block it, so that executor shouldn't be shared with other queries.
+     */
+    public void setReadAllClient(TableClient tableClient) {
+        this.readAllRetryCtx = SessionRetryContext.create(tableClient).build();
+    }
+
+    public void addListener(SeriesListener listener) {
+        listeners.add(listener);
+    }
+
+    protected void fireReset() {
+        listeners.forEach(SeriesListener::onReset);
     }
 
     public void dropTables() {
         retryCtx.supplyStatus(session -> session.dropTable(tablePrefix + "series")).join();
         retryCtx.supplyStatus(session -> session.dropTable(tablePrefix + "series_rev_views")).join();
+        retryCtx.supplyStatus(session -> session.dropTable(tablePrefix + "series_release_dates")).join();
+        retryCtx.supplyStatus(session -> session.dropTable(tablePrefix + "series_title_trigrams")).join();
+        fireReset();
     }
 
     public void createTables() {
-        retryCtx.supplyStatus(session -> session
-                .createTable(tablePrefix + "series", TABLE_DESCRIPTION))
-                .join();
-        retryCtx.supplyStatus(session -> session
-                .createTable(tablePrefix + "series_rev_views", TABLE_REV_INDEX_DESCRIPTION))
-                .join();
+        createTable("series", seriesTable());
+        createTable("series_rev_views", TableDescription.newBuilder()
+                .addNullableColumn("rev_views", PrimitiveType.Uint64)
+                .addNullableColumn("series_id", PrimitiveType.Uint64)
+                .setPrimaryKeys("rev_views", "series_id"));
+        createTable("series_release_dates", TableDescription.newBuilder()
+                .addNullableColumn("release_date", PrimitiveType.Uint32)
+                .addNullableColumn("series_id", PrimitiveType.Uint64)
+                .setPrimaryKeys("release_date", "series_id"));
+        createTable("series_title_trigrams", titleTrigramsTable());
+        fireReset();
+    }
+
+    protected static TableDescription.Builder seriesTable() {
+        return TableDescription.newBuilder()
+                .addNullableColumn("series_id", PrimitiveType.Uint64)
+                .addNullableColumn("title", PrimitiveType.Text)
+                .addNullableColumn("series_info", PrimitiveType.Text)
+                .addNullableColumn("release_date", PrimitiveType.Uint32)
+                .addNullableColumn("views", PrimitiveType.Uint64)
+                .setPrimaryKey("series_id");
+    }
+
+    protected static TableDescription.Builder titleTrigramsTable() {
+        return TableDescription.newBuilder()
+                .addNullableColumn("trigram", PrimitiveType.Text)
+                .addNullableColumn("series_id", PrimitiveType.Uint64)
+                .setPrimaryKeys("trigram", "series_id");
+    }
+
+    /**
+     * Creates table with configured {@link TablePartitioning}
+     */
+    protected void createTable(String name, TableDescription.Builder description) {
+        TablePartitioning tablePartitioning = partitioning;
+        PartitioningSettings partitioningSettings = tablePartitioning.toPartitioningSettings();
+        if (partitioningSettings != null) {
+            description.setPartitioningSettings(partitioningSettings);
+        }
+        TableDescription table = description.build();
+        CreateTableSettings settings = tablePartitioning.toCreateTableSettings();
+        retryCtx.supplyStatus(session -> session.createTable(tablePrefix + name, table, settings)).join();
     }
 
     public void insert(Series series) {
@@ -72,9 +206,45 @@ public class SeriesRepository {
                 "$releaseDate", PrimitiveValue.newUint32(series.getReleaseDate().toEpochDay()),
                 "$views", PrimitiveValue.newUint64(series.getViews())
         );
-        return retryCtx
-                .supplyResult(session -> executeQuery(session, QueryTemplate.SERIES_INSERT, params))
-                .thenApply(result -> result.isSuccess());
+        return execute(QueryTemplate.SERIES_INSERT, params)
+                .thenApply(result -> {
+                    if (result.isSuccess()) {
+                        listeners.forEach(listener -> listener.onInserted(series));
+                    }
+                    return result.isSuccess();
+                });
+    }
+
+    public boolean insertBatch(List<Series> series) {
+        return insertBatchAsync(series, DEFAULT_BATCH_SIZE, DEFAULT_BATCH_CONCURRENCY).join();
+    }
+
+    /**
+     * Inserts many series at once. Series are split into chunks of batchSize, every chunk is written to both
+     * tables by one transaction, at most maxConcurrency chunks are written at the same time.
+     */
+    public CompletableFuture<Boolean> insertBatchAsync(List<Series> series, int batchSize, int maxConcurrency) {
+        return Batches.runBounded(Batches.split(series, batchSize), maxConcurrency, chunk -> {
+            Value<?>[] items = new Value<?>[chunk.size()];
+            for (int idx = 0; idx < items.length; idx++) {
+                Series s = chunk.get(idx);
+                items[idx] = StructValue.of(
+                        "series_id", PrimitiveValue.newUint64(s.getSeriesId()),
+                        "title", PrimitiveValue.newText(s.getTitle()),
+                        "series_info", PrimitiveValue.newText(s.getSeriesInfo()),
+                        "release_date", PrimitiveValue.newUint32(s.getReleaseDate().toEpochDay()),
+                        "views", PrimitiveValue.newUint64(s.getViews())
+                );
+            }
+            Params params = Params.of("$items", ListValue.of(items));
+            return execute(QueryTemplate.SERIES_INSERT_BATCH, params)
+                    .thenApply(result -> {
+                        if (result.isSuccess()) {
+                            chunk.forEach(s -> listeners.forEach(listener -> listener.onInserted(s)));
+                        }
+                        return result.isSuccess();
+                    });
+        }).thenApply(results -> results.stream().allMatch(Boolean::booleanValue));
     }
 
     public long delete(long seriesId) {
@@ -83,14 +253,17 @@ public class SeriesRepository {
 
     public CompletableFuture<Long> deleteAsync(long seriesId) {
         Params params = Params.of("$seriesId", PrimitiveValue.newUint64(seriesId));
-        return retryCtx
-                .supplyResult(session -> executeQuery(session, QueryTemplate.SERIES_DELETE, params))
+        return execute(QueryTemplate.SERIES_DELETE, params)
                 .thenApply(Result::getValue).thenApply(result -> {
                     ResultSetReader resultSet = result.getResultSet(0);
                     if (!resultSet.next()) {
                         throw new IllegalStateException("Query count was not returned");
                     }
-                    return resultSet.getColumn(0).getUint64();
+                    long count = resultSet.getColumn(0).getUint64();
+                    if (count > 0) {
+                        listeners.forEach(listener -> listener.onDeleted(seriesId));
+                    }
+                    return count;
                 });
     }
 
@@ -103,49 +276,423 @@ public class SeriesRepository {
                 "$seriesId", PrimitiveValue.newUint64(seriesId),
                 "$newViews", PrimitiveValue.newUint64(newViews)
         );
-        return retryCtx
-                .supplyResult(session -> executeQuery(session, QueryTemplate.SERIES_UPDATE_VIEWS, params))
+        return execute(QueryTemplate.SERIES_UPDATE_VIEWS, params)
                 .thenApply(Result::getValue).thenApply(result -> {
                     ResultSetReader resultSet = result.getResultSet(0);
                     if (!resultSet.next()) {
                         throw new IllegalStateException("Query count was not returned");
                     }
-                    return resultSet.getColumn(0).getUint64();
+                    long count = resultSet.getColumn(0).getUint64();
+                    if (count > 0) {
+                        listeners.forEach(listener -> listener.onViewsUpdated(seriesId, newViews));
+                    }
+                    return count;
                 });
     }
 
+    /**
+     * Sets views of many series at once. Every chunk of batchSize series is updated by one set-based transaction,
+     * at most maxConcurrency chunks are updated in parallel. Missing series are skipped.
+     *
+     * @return count of updated series
+     */
+    public CompletableFuture<Long> updateViewsBatchAsync(Map<Long, Long> views, int batchSize, int maxConcurrency) {
+        List<Map.Entry<Long, Long>> entries = new ArrayList<>(views.entrySet());
+        return Batches.runBounded(Batches.split(entries, batchSize), maxConcurrency, chunk -> {
+            Value<?>[] items = new Value<?>[chunk.size()];
+            for (int idx = 0; idx < items.length; idx++) {
+                items[idx] = StructValue.of(
+                        "series_id", PrimitiveValue.newUint64(chunk.get(idx).getKey()),
+                        "views", PrimitiveValue.newUint64(chunk.get(idx).getValue())
+                );
+            }
+            Params params = Params.of("$items", ListValue.of(items));
+            return execute(QueryTemplate.SERIES_UPDATE_VIEWS_BATCH, params)
+                    .thenApply(Result::getValue).thenApply(result -> {
+                        ResultSetReader resultSet = result.getResultSet(0);
+                        long count = 0;
+                        while (resultSet.next()) {
+                            long seriesId = resultSet.getColumn(0).getUint64();
+                            long newViews = resultSet.getColumn(1).getUint64();
+                            listeners.forEach(listener -> listener.onViewsUpdated(seriesId, newViews));
+                            count++;
+                        }
+                        return count;
+                    });
+        }).thenApply(counts -> counts.stream().mapToLong(Long::longValue).sum());
+    }
+
+    /**
+     * Adds views to many series at once, every series is updated once per chunk of batchSize deltas.
+     * Missing series are skipped. Chunks are separate transactions, a failure of one chunk doesn't affect others.
+     * A chunk is not written if it failed with a status the SDK retries for non-idempotent operations (e.g.
+     * {@code ABORTED} or {@code OVERLOADED}), other failures leave its outcome undetermined.
+     *
+     * @return deltas of failed chunks, empty if all deltas are written
+     */
+    public CompletableFuture<AddViewsResult> addViewsBatchAsync(Map<Long, Long> deltas, int batchSize,
+            int maxConcurrency) {
+        List<Map.Entry<Long, Long>> entries = new ArrayList<>(deltas.entrySet());
+        List<List<Map.Entry<Long, Long>>> chunks = Batches.split(entries, batchSize);
+        return Batches.runBounded(chunks, maxConcurrency, chunk -> {
+            Value<?>[] items = new Value<?>[chunk.size()];
+            for (int idx = 0; idx < items.length; idx++) {
+                items[idx] = StructValue.of(
+                        "series_id", PrimitiveValue.newUint64(chunk.get(idx).getKey()),
+                        "delta", PrimitiveValue.newUint64(chunk.get(idx).getValue())
+                );
+            }
+            Params params = Params.of("$items", ListValue.of(items));
+            return execute(QueryTemplate.SERIES_ADD_VIEWS_BATCH, params)
+                    .handle((result, th) -> {
+                        if (th != null) {
+                            return StatusCode.UNDETERMINED;
+                        }
+                        if (!result.isSuccess()) {
+                            return result.getStatus().getCode();
+                        }
+                        ResultSetReader resultSet = result.getValue().getResultSet(0);
+                        while (resultSet.next()) {
+                            long seriesId = resultSet.getColumn(0).getUint64();
+                            long views = resultSet.getColumn(1).getUint64();
+                            listeners.forEach(listener -> listener.onViewsUpdated(seriesId, views));
+                        }
+                        return StatusCode.SUCCESS;
+                    });
+        }).thenApply(codes -> {
+            AddViewsResult failed = new AddViewsResult();
+            for (int idx = 0; idx < codes.size(); idx++) {
+                StatusCode code = codes.get(idx);
+                if (code == StatusCode.SUCCESS) {
+                    continue;
+                }
+                Map<Long, Long> target = code.isRetryable(false) ? failed.notWritten : failed.undetermined;
+                chunks.get(idx).forEach(entry -> target.put(entry.getKey(), entry.getValue()));
+            }
+            return failed;
+        });
+    }
+
     public Series findById(long seriesId) {
         return findByIdAsync(seriesId).join();
     }
 
+    /**
+     * Finds series by id, reads through the cache if it is set
+     */
     public CompletableFuture<Series> findByIdAsync(long seriesId) {
+        SeriesCache seriesCache = cache;
+        if (seriesCache == null) {
+            return readById(seriesId);
+        }
+
+        Series cached = seriesCache.get(seriesId);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        long version = seriesCache.version(seriesId);
+        return readById(seriesId).thenApply(series -> {
+            if (series != null) {
+                seriesCache.putLoaded(series, version);
+            }
+            return series;
+        });
+    }
+
+    private CompletableFuture<Series> readById(long seriesId) {
         Params params = Params.of("$seriesId", PrimitiveValue.newUint64(seriesId));
-        return retryCtx
-                .supplyResult(session -> executeQuery(session, QueryTemplate.SERIES_FIND_BY_ID, params))
+        return execute(QueryTemplate.SERIES_FIND_BY_ID, params)
                 .thenApply(Result::getValue).thenApply(result -> {
                     ResultSetReader resultSet = result.getResultSet(0);
                     if (!resultSet.next()) {
                         return null;
                     }
-                    return extractSeries(resultSet);
+                    return SERIES_MAPPER.bind(resultSet).map();
                 });
     }
 
+    public CompletableFuture<List<Series>> findByIdsAsync(Collection<Long> seriesIds) {
+        return findByIdsAsync(seriesIds, DEFAULT_BATCH_SIZE, DEFAULT_BATCH_CONCURRENCY);
+    }
+
+    /**
+     * Finds many series at once. Unique ids are split into chunks of batchSize, every chunk is read by one query and
+     * at most maxConcurrency queries run in parallel. Found series are returned in order of the requested ids,
+     * missing series are skipped.
+     */
+    public CompletableFuture<List<Series>> findByIdsAsync(
+            Collection<Long> seriesIds, int batchSize, int maxConcurrency) {
+        List<Long> uniqueIds = new ArrayList<>(new LinkedHashSet<>(seriesIds));
+        return Batches.runBounded(Batches.split(uniqueIds, batchSize), maxConcurrency, chunk -> {
+            Value<?>[] ids = new Value<?>[chunk.size()];
+            for (int idx = 0; idx < ids.length; idx++) {
+                ids[idx] = PrimitiveValue.newUint64(chunk.get(idx));
+            }
+            Params params = Params.of("$seriesIds", ListValue.of(ids));
+            return execute(QueryTemplate.SERIES_FIND_BY_IDS, params)
+                    .thenApply(Result::getValue)
+                    .thenApply(result -> SERIES_MAPPER.mapAll(result.getResultSet(0)));
+        }).thenApply(chunks -> {
+            Map<Long, Series> found = new HashMap<>(uniqueIds.size());
+            for (List<Series> chunk : chunks) {
+                for (Series series : chunk) {
+                    found.put(series.getSeriesId(), series);
+                }
+            }
+            List<Series> results = new ArrayList<>(found.size());
+            for (Long seriesId : seriesIds) {
+                Series series = found.get(seriesId);
+                if (series != null) {
+                    results.add(series);
+                }
+            }
+            return results;
+        });
+    }
+
+    public CompletableFuture<List<Series>> findByReleaseDateRangeAsync(LocalDate from, LocalDate to) {
+        return findByReleaseDateRangeAsync(from, to, DEFAULT_BATCH_CONCURRENCY);
+    }
+
+    /**
+     * Finds series released in [from, to) ordered by release date and id. The range is split into sub-ranges of
+     * whole days, every sub-range is read page by page and at most maxConcurrency sub-ranges are read in parallel,
+     * so wide ranges are served by many partitions of the index at once.
+     */
+    public CompletableFuture<List<Series>> findByReleaseDateRangeAsync(LocalDate from, LocalDate to,
+            int maxConcurrency) {
+        long fromDay = from.toEpochDay();
+        long toDay = to.toEpochDay();
+        if (fromDay >= toDay) {
+            return CompletableFuture.completedFuture(new ArrayList<>());
+        }
+
+        long days = toDay - fromDay;
+        int subRanges = (int) Math.min(days, (long) maxConcurrency * RELEASE_DATE_SUBRANGES_PER_QUERY);
+        List<long[]> ranges = new ArrayList<>(subRanges);
+        for (int idx = 0; idx < subRanges; idx++) {
+            ranges.add(new long[] {fromDay + days * idx / subRanges, fromDay + days * (idx + 1) / subRanges});
+        }
+
+        return Batches.runBounded(ranges, maxConcurrency,
+                range -> readReleaseDatePages(range[0], null, range[1], new ArrayList<>())
+        ).thenApply(pages -> {
+            // sub-ranges don't overlap and are returned in order, so concatenation keeps the order
+            List<Series> results = new ArrayList<>();
+            pages.forEach(results::addAll);
+            return results;
+        });
+    }
+
+    private CompletableFuture<List<Series>> readReleaseDatePages(long fromDay, Long lastSeriesId, long toDay,
+            List<Series> results) {
+        Params params = Params.of(
+                "$limit", PrimitiveValue.newUint64(PAGE_SIZE),
+                "$fromDate", PrimitiveValue.newUint32(fromDay),
+                "$toDate", PrimitiveValue.newUint32(toDay),
+                "$lastSeriesId", lastSeriesId != null
+                        ? PrimitiveValue.newUint64(lastSeriesId).makeOptional()
+                        : PrimitiveType.Uint64.makeOptional().emptyValue()
+        );
+        return execute(QueryTemplate.SERIES_FIND_BY_RELEASE_DATE, params)
+                .thenApply(Result::getValue).thenCompose(result -> {
+                    List<Series> page = SERIES_MAPPER.mapAll(result.getResultSet(0));
+                    results.addAll(page);
+                    if (page.size() < PAGE_SIZE) {
+                        return CompletableFuture.completedFuture(results);
+                    }
+                    Series last = page.get(page.size() - 1);
+                    return readReleaseDatePages(last.getReleaseDate().toEpochDay(), last.getSeriesId(), toDay,
+                            results);
+                });
+    }
+
+    public CompletableFuture<List<Series>> searchByTitleAsync(String text, int limit) {
+        return searchByTitleAsync(text, limit, DEFAULT_BATCH_CONCURRENCY);
+    }
+
+    /**
+     * Finds series with titles containing the text, ignoring case, ordered by id. The first pages of posting lists
+     * of all trigrams of the text are read from series_title_trigrams in parallel, the shortest one drives the
+     * search. Its pages are read one by one until limit series are found: ids of a page are intersected with other
+     * posting lists read in full by the first page, the rest of trigrams are probed by id, then candidates are read
+     * and checked. So at most one page of every posting list and the pages of the driving one needed for the limit
+     * are read.
+     *
+     * @throws IllegalArgumentException if the text is shorter than three characters
+     */
+    public CompletableFuture<List<Series>> searchByTitleAsync(String text, int limit, int maxConcurrency) {
+        List<String> trigrams = new ArrayList<>(Trigrams.of(text));
+        if (trigrams.isEmpty()) {
+            throw new IllegalArgumentException("Search text must have at least 3 characters, but was " + text);
+        }
+        String needle = text.toLowerCase(Locale.ROOT);
+        return Batches.runBounded(trigrams, maxConcurrency, trigram -> readPostingPage(trigram, null))
+                .thenCompose(firstPages -> {
+                    int driver = 0;
+                    for (int idx = 1; idx < firstPages.size(); idx++) {
+                        if (firstPages.get(idx).length < firstPages.get(driver).length) {
+                            driver = idx;
+                        }
+                    }
+                    List<long[]> complete = new ArrayList<>();
+                    List<String> probed = new ArrayList<>();
+                    for (int idx = 0; idx < trigrams.size(); idx++) {
+                        if (idx == driver) {
+                            continue;
+                        }
+                        if (firstPages.get(idx).length < PAGE_SIZE) {
+                            complete.add(firstPages.get(idx));
+                        } else {
+                            probed.add(trigrams.get(idx));
+                        }
+                    }
+                    return searchPages(trigrams.get(driver), firstPages.get(driver), complete, probed, needle,
+                            limit, new ArrayList<>());
+                });
+    }
+
+    private CompletableFuture<List<Series>> searchPages(String driver, long[] page, List<long[]> complete,
+            List<String> probed, String needle, int limit, List<Series> results) {
+        List<long[]> lists = new ArrayList<>(complete.size() + 1);
+        lists.add(page);
+        lists.addAll(complete);
+        long[] candidates = Trigrams.intersect(lists);
+        return readMatching(candidates, 0, probed, needle, limit, results).thenCompose(found -> {
+            if (found.size() >= limit || page.length < PAGE_SIZE) {
+                return CompletableFuture.completedFuture(found);
+            }
+            return readPostingPage(driver, page[page.length - 1]).thenCompose(next ->
+                    searchPages(driver, next, complete, probed, needle, limit, found));
+        });
+    }
+
+    private CompletableFuture<long[]> readPostingPage(String trigram, Long lastSeriesId) {
+        Params params = Params.of(
+                "$limit", PrimitiveValue.newUint64(PAGE_SIZE),
+                "$trigram", PrimitiveValue.newText(trigram),
+                "$lastSeriesId", lastSeriesId != null
+                        ? PrimitiveValue.newUint64(lastSeriesId).makeOptional()
+                        : PrimitiveType.Uint64.makeOptional().emptyValue()
+        );
+        return execute(QueryTemplate.SERIES_FIND_BY_TRIGRAM, params)
+                .thenApply(Result::getValue)
+                .thenApply(result -> readIds(result.getResultSet(0)));
+    }
+
+    /**
+     * Ids of candidates which have all the probed trigrams
+     */
+    private CompletableFuture<List<Long>> probeTrigrams(List<Long> candidates, List<String> probed) {
+        if (probed.isEmpty() || candidates.isEmpty()) {
+            return CompletableFuture.completedFuture(candidates);
+        }
+        Value<?>[] trigrams = new Value<?>[probed.size()];
+        for (int idx = 0; idx < trigrams.length; idx++) {
+            trigrams[idx] = PrimitiveValue.newText(probed.get(idx));
+        }
+        Value<?>[] ids = new Value<?>[candidates.size()];
+        for (int idx = 0; idx < ids.length; idx++) {
+            ids[idx] = PrimitiveValue.newUint64(candidates.get(idx));
+        }
+        Params params = Params.of("$trigrams", ListValue.of(trigrams), "$seriesIds", ListValue.of(ids));
+        return execute(QueryTemplate.SERIES_PROBE_TRIGRAMS, params)
+                .thenApply(Result::getValue)
+                .thenApply(result -> {
+                    long[] found = readIds(result.getResultSet(0));
+                    List<Long> matched = new ArrayList<>(found.length);
+                    for (long seriesId : found) {
+                        matched.add(seriesId);
+                    }
+                    return matched;
+                });
+    }
+
+    private static long[] readIds(ResultSetReader resultSet) {
+        long[] ids = new long[resultSet.getRowCount()];
+        for (int idx = 0; resultSet.next(); idx++) {
+            ids[idx] = resultSet.getColumn(0).getUint64();
+        }
+        return ids;
+    }
+
+    private CompletableFuture<List<Series>> readMatching(long[] candidates, int from, List<String> probed,
+            String needle, int limit, List<Series> results) {
+        if (from >= candidates.length || results.size() >= limit) {
+            return CompletableFuture.completedFuture(results);
+        }
+        int to = Math.min(from + DEFAULT_BATCH_SIZE, candidates.length);
+        List<Long> chunk = new ArrayList<>(to - from);
+        for (int idx = from; idx < to; idx++) {
+            chunk.add(candidates[idx]);
+        }
+        return probeTrigrams(chunk, probed).thenCompose(this::findByIdsAsync).thenCompose(found -> {
+            for (Series series : found) {
+                String title = series.getTitle();
+                if (results.size() < limit && title != null && title.toLowerCase(Locale.ROOT).contains(needle)) {
+                    results.add(series);
+                }
+            }
+            return readMatching(candidates, to, probed, needle, limit, results);
+        });
+    }
+
+    /**
+     * Reads all series ordered by id with a read table stream and passes them to the consumer. The consumer is
+     * called from the thread of the stream (see {@link #setReadAllClient(TableClient)}), the next part is not requested from YDB until it returns, so a slow
+     * consumer slows down the read and memory usage doesn't depend on the table size. A retried read continues
+     * after the last passed series. If the consumer throws, the stream is cancelled and the future fails with
+     * that exception.
+     */
+    public CompletableFuture<Status> readAllAsync(Consumer<Series> consumer) {
+        AtomicReference<Long> lastSeriesId = new AtomicReference<>();
+        AtomicReference<RuntimeException> consumerError = new AtomicReference<>();
+        AtomicInteger attempts = new AtomicInteger();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        return readAllRetryCtx.supplyStatus(session -> {
+            attempts.incrementAndGet();
+            if (consumerError.get() != null) {
+                return CompletableFuture.completedFuture(Status.of(StatusCode.CLIENT_CANCELLED));
+            }
+            ReadTableSettings.Builder settings = ReadTableSettings.newBuilder()
+                    .orderedRead(true)
+                    .columns("series_id", "title", "series_info", "release_date", "views");
+            if (lastSeriesId.get() != null) {
+                settings.fromKeyExclusive(PrimitiveValue.newUint64(lastSeriesId.get()));
+            }
+            GrpcReadStream<ReadTablePart> stream = session.executeReadTable(tablePrefix + "series", settings.build());
+            return stream.start(part -> {
+                ResultSetReader resultSet = part.getResultSetReader();
+                RowMapper<Series>.Bound mapper = SERIES_MAPPER.bind(resultSet);
+                try {
+                    while (resultSet.next()) {
+                        Series series = mapper.map();
+                        consumer.accept(series);
+                        lastSeriesId.set(series.getSeriesId());
+                    }
+                } catch (RuntimeException e) {
+                    consumerError.set(e);
+                    stream.cancel();
+                }
+            });
+        }).thenApply(status -> {
+            recordMetrics("READ_ALL", status.getCode().name(), sample, attempts.get());
+            if (consumerError.get() != null) {
+                throw consumerError.get();
+            }
+            return status;
+        });
+    }
+
     public List<Series> findAll(int limit) {
         return findAllAsync(limit).join();
     }
 
     public CompletableFuture<List<Series>> findAllAsync(int limit) {
         Params params = Params.of("$limit", PrimitiveValue.newUint64(limit));
-        return retryCtx
-                .supplyResult(session -> executeQuery(session, QueryTemplate.SERIES_FIND_ALL, params))
+        return execute(QueryTemplate.SERIES_FIND_ALL, params)
                 .thenApply(Result::getValue).thenApply(result -> {
-                    ResultSetReader resultSet = result.getResultSet(0);
-                    List<Series> results = new ArrayList<>(resultSet.getRowCount());
-                    while (resultSet.next()) {
-                        results.add(extractSeries(resultSet));
-                    }
-                    return results;
+                    return SERIES_MAPPER.mapAll(result.getResultSet(0));
                 });
     }
 
@@ -158,15 +705,9 @@ public class SeriesRepository {
                 "$limit", PrimitiveValue.newUint64(limit),
                 "$lastSeriesId", PrimitiveValue.newUint64(lastSeriesId)
         );
-        return retryCtx
-                .supplyResult(session -> executeQuery(session, QueryTemplate.SERIES_FIND_ALL_NEXT, params))
+        return execute(QueryTemplate.SERIES_FIND_ALL_NEXT, params)
                 .thenApply(Result::getValue).thenApply(result -> {
-                    ResultSetReader resultSet = result.getResultSet(0);
-                    List<Series> results = new ArrayList<>(resultSet.getRowCount());
-                    while (resultSet.next()) {
-                        results.add(extractSeries(resultSet));
-                    }
-                    return results;
+                    return SERIES_MAPPER.mapAll(result.getResultSet(0));
                 });
     }
 
@@ -176,15 +717,9 @@ public class SeriesRepository {
 
     public CompletableFuture<List<Series>> findMostViewedAsync(int limit) {
         Params params = Params.of("$limit", PrimitiveValue.newUint64(limit));
-        return retryCtx
-                .supplyResult(session -> executeQuery(session, QueryTemplate.SERIES_FIND_MOST_VIEWED, params))
+        return execute(QueryTemplate.SERIES_FIND_MOST_VIEWED, params)
                 .thenApply(Result::getValue).thenApply(result -> {
-                    ResultSetReader resultSet = result.getResultSet(0);
-                    List<Series> results = new ArrayList<>(resultSet.getRowCount());
-                    while (resultSet.next()) {
-                        results.add(extractSeries(resultSet));
-                    }
-                    return results;
+                    return SERIES_MAPPER.mapAll(result.getResultSet(0));
                 });
     }
 
@@ -199,30 +734,46 @@ public class SeriesRepository {
                 "$lastViews", PrimitiveValue.newUint64(lastViews)
         );
         
-        return retryCtx
-                .supplyResult(session -> executeQuery(session, QueryTemplate.SERIES_FIND_MOST_VIEWED_NEXT, params))
+        return execute(QueryTemplate.SERIES_FIND_MOST_VIEWED_NEXT, params)
                 .thenApply(Result::getValue).thenApply(result -> {
-                    ResultSetReader resultSet = result.getResultSet(0);
-                    List<Series> results = new ArrayList<>(resultSet.getRowCount());
-                    while (resultSet.next()) {
-                        results.add(extractSeries(resultSet));
-                    }
-                    return results;
+                    return SERIES_MAPPER.mapAll(result.getResultSet(0));
                 });
     }
 
-    private static Series extractSeries(ResultSetReader resultSet) {
-        long seriesId = resultSet.getColumn(0).getUint64();
-        String title = resultSet.getColumn(1).getText();
-        String seriesInfo = resultSet.getColumn(2).getText();
-        LocalDate releaseDate = LocalDate.ofEpochDay(resultSet.getColumn(3).getUint32());
-        long views = resultSet.getColumn(4).getUint64();
-        return new Series(seriesId, title, seriesInfo, releaseDate, views);
+    /**
+     * Allows implementations with another tables layout to replace query templates
+     */
+    protected QueryTemplate resolveTemplate(QueryTemplate query) {
+        return query;
+    }
+
+    /**
+     * Transaction mode of the query, by default it is taken from the template
+     */
+    protected TxControl<?> txControl(QueryTemplate query) {
+        return query.getTxMode().toTxControl();
     }
-    
-    private CompletableFuture<Result<DataQueryResult>> executeQuery(Session session, QueryTemplate query, Params params) {
-        String queryText = query.getText().replaceAll("<TABLE_PREFIX>", tablePrefix);
-        TxControl<?> tx = TxControl.serializableRw().setCommitTx(true);
-        return session.executeDataQuery(queryText, tx, params);
+
+    /**
+     * Executes the query with retries, the whole execution is timed by the template name and the final status
+     */
+    CompletableFuture<Result<DataQueryResult>> execute(QueryTemplate query, Params params) {
+        QueryTemplate resolved = resolveTemplate(query);
+        AtomicInteger attempts = new AtomicInteger();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        return retryCtx.supplyResult(session -> {
+            attempts.incrementAndGet();
+            return queries.execute(session, resolved, txControl(resolved), params);
+        }).whenComplete((result, th) -> {
+            String status = th != null ? "EXCEPTION" : result.getStatus().getCode().name();
+            recordMetrics(resolved.name(), status, sample, attempts.get());
+        });
+    }
+
+    private void recordMetrics(String query, String status, Timer.Sample sample, int attempts) {
+        sample.stop(meterRegistry.timer("ydb.series.query", "query", query, "status", status));
+        if (attempts > 1) {
+            meterRegistry.counter("ydb.series.query.retries", "query", query).increment(attempts - 1);
+        }
     }
 }
@@ -0,0 +1,80 @@
+package tech.ydb.examples.indexes.repositories;
+
+import tech.ydb.table.settings.CreateTableSettings;
+import tech.ydb.table.settings.PartitioningPolicy;
+import tech.ydb.table.settings.PartitioningSettings;
+import tech.ydb.table.settings.ReplicationPolicy;
+
+/**
+ * Partitioning and replication of tables created by {@link SeriesRepository#createTables()}. Zero values keep
+ * defaults of YDB.
+ */
+public class TablePartitioning {
+    public static final TablePartitioning DEFAULT = new TablePartitioning(0, false, 0, 0, 0);
+
+    private final long uniformPartitions;
+    private final boolean partitioningByLoad;
+    private final long minPartitions;
+    private final long maxPartitions;
+    private final int readReplicas;
+
+    /**
+     * @param uniformPartitions count of partitions the table is split into at creation, the whole range of the first
+     *                          primary key column is divided into equal parts
+     * @param partitioningByLoad split partitions with high load and merge idle ones
+     * @param minPartitions minimal count of partitions kept by automatic partitioning
+     * @param maxPartitions maximal count of partitions created by automatic partitioning
+     * @param readReplicas count of read-only replicas of every partition in each availability zone
+     */
+    public TablePartitioning(long uniformPartitions, boolean partitioningByLoad, long minPartitions,
+            long maxPartitions, int readReplicas) {
+        this.uniformPartitions = uniformPartitions;
+        this.partitioningByLoad = partitioningByLoad;
+        this.minPartitions = minPartitions;
+        this.maxPartitions = maxPartitions;
+        this.readReplicas = readReplicas;
+    }
+
+    /**
+     * Settings of automatic partitioning, null if all of them are default
+     */
+    public PartitioningSettings toPartitioningSettings() {
+        if (!partitioningByLoad && minPartitions <= 0 && maxPartitions <= 0) {
+            return null;
+        }
+        PartitioningSettings settings = new PartitioningSettings();
+        if (partitioningByLoad) {
+            settings.setPartitioningByLoad(true);
+        }
+        if (minPartitions > 0) {
+            settings.setMinPartitionsCount(minPartitions);
+        }
+        if (maxPartitions > 0) {
+            settings.setMaxPartitionsCount(maxPartitions);
+        }
+        return settings;
+    }
+
+    public CreateTableSettings toCreateTableSettings() {
+        CreateTableSettings settings = new CreateTableSettings();
+        if (uniformPartitions > 0) {
+            settings.setPartitioningPolicy(new PartitioningPolicy().setUniformPartitions(uniformPartitions));
+        }
+        if (readReplicas > 0) {
+            settings.setReplicationPolicy(new ReplicationPolicy()
+                    .setReplicasCount(readReplicas)
+                    .setCreatePerAvailabilityZone(true)
+                    .setAllowPromotion(false));
+        }
+        return settings;
+    }
+
+    @Override
+    public String toString() {
+        return "TablePartitioning{uniformPartitions=" + uniformPartitions
+                + ", partitioningByLoad=" + partitioningByLoad
+                + ", minPartitions=" + minPartitions
+                + ", maxPartitions=" + maxPartitions
+                + ", readReplicas=" + readReplicas + '}';
+    }
+}
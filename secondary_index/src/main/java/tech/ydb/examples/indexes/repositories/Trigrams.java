@@ -0,0 +1,62 @@
+package tech.ydb.examples.indexes.repositories;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Trigrams of series titles and intersection of their posting lists.
+ */
+public final class Trigrams {
+    private Trigrams() { }
+
+    /**
+     * Unique trigrams of lower-cased text, every trigram is three code points. Must match $trigrams lambda of
+     * trigrams.yql, which is included into insert and delete templates.
+     */
+    public static Set<String> of(String text) {
+        int[] codePoints = text.toLowerCase(Locale.ROOT).codePoints().toArray();
+        Set<String> trigrams = new LinkedHashSet<>();
+        for (int pos = 0; pos + 3 <= codePoints.length; pos++) {
+            trigrams.add(new String(codePoints, pos, 3));
+        }
+        return trigrams;
+    }
+
+    /**
+     * Intersects sorted arrays of ids. Arrays are processed from the shortest one, so the cost is bounded by its
+     * length multiplied by count of arrays and log of the longer ones.
+     */
+    public static long[] intersect(List<long[]> postingLists) {
+        if (postingLists.isEmpty()) {
+            return new long[0];
+        }
+        List<long[]> lists = new ArrayList<>(postingLists);
+        lists.sort(Comparator.comparingInt(list -> list.length));
+
+        long[] result = lists.get(0);
+        int size = result.length;
+        for (int idx = 1; idx < lists.size() && size > 0; idx++) {
+            long[] other = lists.get(idx);
+            long[] next = new long[size];
+            int nextSize = 0;
+            int from = 0;
+            for (int pos = 0; pos < size && from < other.length; pos++) {
+                int found = Arrays.binarySearch(other, from, other.length, result[pos]);
+                if (found >= 0) {
+                    next[nextSize++] = result[pos];
+                    from = found + 1;
+                } else {
+                    from = -found - 1;
+                }
+            }
+            result = next;
+            size = nextSize;
+        }
+        return Arrays.copyOf(result, size);
+    }
+}
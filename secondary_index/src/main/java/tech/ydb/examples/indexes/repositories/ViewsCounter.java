@@ -0,0 +1,157 @@
+package tech.ydb.examples.indexes.repositories;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Write-combining counter of series views. Increments are accumulated in memory per series and periodically
+ * written to YDB by batched transactions, so a popular series is updated once per flush instead of once per view.
+ * <p>
+ * Deltas are kept in stripes, every stripe is a separate map with its own lock, so concurrent increments of
+ * different series rarely wait for each other. A flush swaps maps of all stripes and writes collected deltas.
+ * Only one flush runs at a time, unless collected deltas are older than max staleness. Deltas of chunks which
+ * are known not to be committed are returned to the stripes and written by the next flush, deltas of written chunks
+ * are not. The views are added to the stored ones, so a chunk with undetermined outcome (e.g. a timeout) is not
+ * written again, its views may be already counted. Such deltas are logged and counted by
+ * {@code ydb.series.views.lost}.
+ */
+public class ViewsCounter implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ViewsCounter.class);
+
+    private static final class Stripe {
+        private Map<Long, Long> deltas = new HashMap<>();
+        /** Time of the first increment after the last flush */
+        private long firstDeltaNanos;
+    }
+
+    private final SeriesRepository repository;
+    private final Stripe[] stripes;
+    private final AtomicInteger flushesInFlight = new AtomicInteger();
+    private final Counter lostViews;
+
+    private long maxStalenessNanos = Long.MAX_VALUE;
+    private ScheduledFuture<?> flushTask;
+
+    public ViewsCounter(SeriesRepository repository, int stripesCount, MeterRegistry meterRegistry) {
+        if (stripesCount <= 0 || Integer.bitCount(stripesCount) != 1) {
+            throw new IllegalArgumentException("stripesCount must be a power of two, but was " + stripesCount);
+        }
+        this.repository = repository;
+        this.stripes = new Stripe[stripesCount];
+        for (int idx = 0; idx < stripesCount; idx++) {
+            stripes[idx] = new Stripe();
+        }
+        this.lostViews = meterRegistry.counter("ydb.series.views.lost");
+    }
+
+    public void start(ScheduledExecutorService scheduler, long flushIntervalMs, long maxStalenessMs) {
+        this.maxStalenessNanos = TimeUnit.MILLISECONDS.toNanos(maxStalenessMs);
+        this.flushTask = scheduler.scheduleAtFixedRate(
+                this::flushIfIdle, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void incrementViews(long seriesId, long delta) {
+        if (delta <= 0) {
+            throw new IllegalArgumentException("delta must be positive, but was " + delta);
+        }
+        add(seriesId, delta, System.nanoTime());
+    }
+
+    /**
+     * Writes all collected deltas to YDB
+     */
+    public CompletableFuture<Boolean> flush() {
+        Map<Long, Long> collected = new HashMap<>();
+        for (Stripe stripe : stripes) {
+            Map<Long, Long> deltas;
+            synchronized (stripe) {
+                deltas = stripe.deltas;
+                stripe.deltas = new HashMap<>();
+            }
+            collected.putAll(deltas);
+        }
+        if (collected.isEmpty()) {
+            return CompletableFuture.completedFuture(true);
+        }
+
+        long flushedAt = System.nanoTime();
+        flushesInFlight.incrementAndGet();
+        return repository.addViewsBatchAsync(collected, SeriesRepository.DEFAULT_BATCH_SIZE,
+                SeriesRepository.DEFAULT_BATCH_CONCURRENCY).handle((failed, th) -> {
+                    flushesInFlight.decrementAndGet();
+                    if (th != null) {
+                        // the chunks were not started or their outcome is unknown
+                        logger.error("Failed to flush views of {} series, views may be lost", collected.size(), th);
+                        lost(collected);
+                        return false;
+                    }
+                    if (!failed.notWritten().isEmpty()) {
+                        logger.warn("Failed to flush views of {} series, will retry", failed.notWritten().size());
+                        failed.notWritten().forEach((seriesId, delta) -> add(seriesId, delta, flushedAt));
+                    }
+                    if (!failed.undetermined().isEmpty()) {
+                        logger.error("Flush of views of {} series is undetermined, views may be lost",
+                                failed.undetermined().size());
+                        lost(failed.undetermined());
+                    }
+                    return failed.isEmpty();
+                });
+    }
+
+    @Override
+    public void close() {
+        if (flushTask != null) {
+            flushTask.cancel(false);
+        }
+        if (!flush().join()) {
+            logger.error("Views of some series were lost on close");
+        }
+    }
+
+    private void flushIfIdle() {
+        if (flushesInFlight.get() > 0 && System.nanoTime() - oldestDeltaNanos() < maxStalenessNanos) {
+            return;
+        }
+        flush();
+    }
+
+    private long oldestDeltaNanos() {
+        long oldest = System.nanoTime();
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                if (!stripe.deltas.isEmpty() && stripe.firstDeltaNanos - oldest < 0) {
+                    oldest = stripe.firstDeltaNanos;
+                }
+            }
+        }
+        return oldest;
+    }
+
+    private void lost(Map<Long, Long> deltas) {
+        long views = 0;
+        for (long delta : deltas.values()) {
+            views += delta;
+        }
+        lostViews.increment(views);
+    }
+
+    private void add(long seriesId, long delta, long nanos) {
+        Stripe stripe = stripes[Long.hashCode(seriesId * 0x9E3779B97F4A7C15L) & (stripes.length - 1)];
+        synchronized (stripe) {
+            if (stripe.deltas.isEmpty()) {
+                stripe.firstDeltaNanos = nanos;
+            }
+            stripe.deltas.merge(seriesId, delta, Long::sum);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package tech.ydb.examples.indexes;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the cost of getting query text: regex replace for every query against templates resolved once per
+ * table prefix. Run with
+ * <pre>
+ *   mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=tech.ydb.examples.indexes.QueryTemplateBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryTemplateBenchmark {
+    private static final String TABLE_PREFIX = "/ru/home/user/mydb/";
+
+    @Param({"SERIES_FIND_BY_ID", "SERIES_FIND_MOST_VIEWED_NEXT"})
+    private String templateName;
+
+    private QueryTemplate template;
+    private CompiledQueries queries;
+
+    @Setup
+    public void setup() {
+        template = QueryTemplate.valueOf(templateName);
+        queries = CompiledQueries.forPrefix(TABLE_PREFIX);
+    }
+
+    @Benchmark
+    public String regexReplace() {
+        return template.getText().replaceAll("<TABLE_PREFIX>", TABLE_PREFIX);
+    }
+
+    @Benchmark
+    public String plainReplace() {
+        return template.resolve(TABLE_PREFIX);
+    }
+
+    @Benchmark
+    public String compiled() {
+        return queries.getText(template);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(QueryTemplateBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,106 @@
+package tech.ydb.examples.indexes;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import tech.ydb.examples.indexes.model.Series;
+import tech.ydb.examples.mapping.RowMapper;
+import tech.ydb.proto.ValueProtos;
+import tech.ydb.table.result.ResultSetReader;
+import tech.ydb.table.result.impl.ProtoValueReaders;
+import tech.ydb.table.values.proto.ProtoType;
+import tech.ydb.table.values.proto.ProtoValue;
+
+/**
+ * Compares mapping of a page of series rows by {@link RowMapper} against the hand-written loop of typed getters by
+ * column index. Run with
+ * <pre>
+ *   mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=tech.ydb.examples.indexes.RowMapperBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RowMapperBenchmark {
+    private static final int ROWS = 1000;
+
+    private static final RowMapper<Series> MAPPER = RowMapper.builder(Series.class)
+            .column("series_id")
+            .column("title")
+            .column("series_info")
+            .column("release_date", LocalDate::ofEpochDay)
+            .column("views")
+            .build();
+
+    private ValueProtos.ResultSet resultSet;
+
+    @Setup
+    public void setup() {
+        ValueProtos.ResultSet.Builder builder = ValueProtos.ResultSet.newBuilder()
+                .addColumns(column("series_id", ProtoType.getUint64()))
+                .addColumns(column("title", ProtoType.getText()))
+                .addColumns(column("series_info", ProtoType.getText()))
+                .addColumns(column("release_date", ProtoType.getUint32()))
+                .addColumns(column("views", ProtoType.getUint64()));
+        for (int idx = 0; idx < ROWS; idx++) {
+            builder.addRows(ValueProtos.Value.newBuilder()
+                    .addItems(ProtoValue.fromUint64(idx))
+                    .addItems(ProtoValue.fromText("Name " + idx))
+                    .addItems(ProtoValue.fromText("Info " + idx))
+                    .addItems(ProtoValue.fromUint32(18000 + idx % 1000))
+                    .addItems(ProtoValue.fromUint64(idx * 10L)));
+        }
+        resultSet = builder.build();
+    }
+
+    private static ValueProtos.Column column(String name, ValueProtos.Type type) {
+        return ValueProtos.Column.newBuilder().setName(name).setType(type).build();
+    }
+
+    @Benchmark
+    public List<Series> handWritten() {
+        ResultSetReader reader = ProtoValueReaders.forResultSet(resultSet);
+        List<Series> results = new ArrayList<>(reader.getRowCount());
+        while (reader.next()) {
+            long seriesId = reader.getColumn(0).getUint64();
+            String title = reader.getColumn(1).getText();
+            String seriesInfo = reader.getColumn(2).getText();
+            LocalDate releaseDate = LocalDate.ofEpochDay(reader.getColumn(3).getUint32());
+            long views = reader.getColumn(4).getUint64();
+            results.add(new Series(seriesId, title, seriesInfo, releaseDate, views));
+        }
+        return results;
+    }
+
+    @Benchmark
+    public List<Series> rowMapper() {
+        return MAPPER.mapAll(ProtoValueReaders.forResultSet(resultSet));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(RowMapperBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
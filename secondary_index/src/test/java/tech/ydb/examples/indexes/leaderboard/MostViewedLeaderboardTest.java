@@ -0,0 +1,204 @@
+package tech.ydb.examples.indexes.leaderboard;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import tech.ydb.examples.indexes.model.Series;
+import tech.ydb.examples.indexes.repositories.SeriesRepository;
+import tech.ydb.examples.indexes.repositories.TestRepositories;
+
+public class MostViewedLeaderboardTest {
+    /**
+     * Reads of the top and of single series complete when the test completes them
+     */
+    private static final class FakeRepository extends SeriesRepository {
+        private final Deque<CompletableFuture<List<Series>>> topReads = new ArrayDeque<>();
+        private final Map<Long, CompletableFuture<Series>> seriesReads = new HashMap<>();
+
+        private FakeRepository() {
+            super(TestRepositories.noTableClient(), "/local", new SimpleMeterRegistry());
+        }
+
+        @Override
+        public CompletableFuture<List<Series>> findMostViewedAsync(int limit) {
+            CompletableFuture<List<Series>> read = new CompletableFuture<>();
+            topReads.add(read);
+            return read;
+        }
+
+        @Override
+        public CompletableFuture<Series> findByIdAsync(long seriesId) {
+            return seriesReads.computeIfAbsent(seriesId, id -> new CompletableFuture<>());
+        }
+    }
+
+    private static Series series(long seriesId, long views) {
+        return new Series(seriesId, "Name " + seriesId, "Info " + seriesId, LocalDate.of(2020, 1, 1), views);
+    }
+
+    private static List<Long> ids(List<Series> list) {
+        List<Long> ids = new ArrayList<>();
+        for (Series series : list) {
+            ids.add(series.getSeriesId());
+        }
+        return ids;
+    }
+
+    private static MostViewedLeaderboard loaded(FakeRepository repository, int capacity, Series... top) {
+        MostViewedLeaderboard leaderboard = new MostViewedLeaderboard(repository, capacity);
+        leaderboard.reconcile();
+        repository.topReads.remove().complete(Arrays.asList(top));
+        return leaderboard;
+    }
+
+    @Test
+    public void notReadyBeforeLoad() {
+        FakeRepository repository = new FakeRepository();
+        MostViewedLeaderboard leaderboard = new MostViewedLeaderboard(repository, 3);
+        Assertions.assertNull(leaderboard.findMostViewed(3));
+        leaderboard.reconcile();
+        repository.topReads.remove().complete(Arrays.asList(series(1, 30), series(2, 20)));
+        Assertions.assertEquals(Arrays.asList(1L, 2L), ids(leaderboard.findMostViewed(3)));
+        Assertions.assertNull(leaderboard.findMostViewed(4), "limit above capacity");
+    }
+
+    @Test
+    public void insert() {
+        FakeRepository repository = new FakeRepository();
+        MostViewedLeaderboard leaderboard = loaded(repository, 3, series(1, 30), series(2, 20));
+
+        leaderboard.onInserted(series(3, 25));
+        Assertions.assertEquals(Arrays.asList(1L, 3L, 2L), ids(leaderboard.findMostViewed(3)));
+    }
+
+    @Test
+    public void update() {
+        FakeRepository repository = new FakeRepository();
+        MostViewedLeaderboard leaderboard = loaded(repository, 3, series(1, 30), series(2, 20), series(3, 10));
+
+        leaderboard.onViewsUpdated(3, 40);
+        List<Series> top = leaderboard.findMostViewed(3);
+        Assertions.assertEquals(Arrays.asList(3L, 1L, 2L), ids(top));
+        Assertions.assertEquals(40, top.get(0).getViews());
+        Assertions.assertEquals("Name 3", top.get(0).getTitle());
+    }
+
+    @Test
+    public void delete() {
+        FakeRepository repository = new FakeRepository();
+        MostViewedLeaderboard leaderboard = loaded(repository, 3, series(1, 30), series(2, 20));
+
+        leaderboard.onDeleted(1);
+        Assertions.assertEquals(Arrays.asList(2L), ids(leaderboard.findMostViewed(3)));
+    }
+
+    @Test
+    public void evictionBelowFloor() {
+        FakeRepository repository = new FakeRepository();
+        // the top is full, so all other series rank below series 3
+        MostViewedLeaderboard leaderboard = loaded(repository, 3, series(1, 30), series(2, 20), series(3, 10));
+
+        leaderboard.onInserted(series(5, 5));
+        Assertions.assertEquals(Arrays.asList(1L, 2L, 3L), ids(leaderboard.findMostViewed(3)));
+
+        // series 3 is evicted and becomes the floor
+        leaderboard.onInserted(series(6, 25));
+        Assertions.assertEquals(Arrays.asList(1L, 6L, 2L), ids(leaderboard.findMostViewed(3)));
+        leaderboard.onViewsUpdated(3, 11);
+        Assertions.assertEquals(Arrays.asList(1L, 6L, 2L), ids(leaderboard.findMostViewed(3)));
+
+        // removed series can't be replaced from memory
+        leaderboard.onDeleted(1);
+        Assertions.assertEquals(Arrays.asList(6L, 2L), ids(leaderboard.findMostViewed(2)));
+        Assertions.assertNull(leaderboard.findMostViewed(3));
+
+        // a series above the floor is loaded before it's served
+        leaderboard.onViewsUpdated(4, 50);
+        Assertions.assertNull(leaderboard.findMostViewed(2));
+        repository.seriesReads.get(4L).complete(series(4, 3));
+        List<Series> top = leaderboard.findMostViewed(3);
+        Assertions.assertEquals(Arrays.asList(4L, 6L, 2L), ids(top));
+        Assertions.assertEquals(50, top.get(0).getViews());
+    }
+
+    @Test
+    public void reconcileKeepsChangesMadeDuringRead() {
+        FakeRepository repository = new FakeRepository();
+        MostViewedLeaderboard leaderboard = loaded(repository, 3, series(1, 30), series(2, 20), series(3, 10));
+
+        leaderboard.reconcile();
+        // the read has seen the table before these changes
+        leaderboard.onViewsUpdated(3, 40);
+        leaderboard.onDeleted(1);
+        leaderboard.onInserted(series(7, 35));
+        repository.topReads.remove().complete(Arrays.asList(series(1, 30), series(2, 20), series(3, 10)));
+
+        List<Series> top = leaderboard.findMostViewed(3);
+        Assertions.assertEquals(Arrays.asList(3L, 7L, 2L), ids(top));
+        Assertions.assertEquals(40, top.get(0).getViews());
+        Assertions.assertEquals("Name 3", top.get(0).getTitle());
+    }
+
+    @Test
+    public void reconcileReplacesOutdatedTop() {
+        FakeRepository repository = new FakeRepository();
+        MostViewedLeaderboard leaderboard = loaded(repository, 3, series(1, 30), series(2, 20));
+
+        // changes made by other applications
+        leaderboard.reconcile();
+        repository.topReads.remove().complete(Arrays.asList(series(2, 50), series(8, 40), series(1, 30)));
+        Assertions.assertEquals(Arrays.asList(2L, 8L, 1L), ids(leaderboard.findMostViewed(3)));
+
+        // changes made before the read started are already seen by it
+        leaderboard.onViewsUpdated(1, 60);
+        leaderboard.reconcile();
+        repository.topReads.remove().complete(Arrays.asList(series(1, 60), series(2, 50), series(8, 40)));
+        Assertions.assertEquals(Arrays.asList(1L, 2L, 8L), ids(leaderboard.findMostViewed(3)));
+    }
+
+    @Test
+    public void reconcileLoadsSeriesUpdatedDuringRead() {
+        FakeRepository repository = new FakeRepository();
+        MostViewedLeaderboard leaderboard = loaded(repository, 2, series(1, 30), series(2, 20));
+
+        leaderboard.reconcile();
+        // series 9 is not in the top and only its views are known
+        leaderboard.onViewsUpdated(9, 100);
+        repository.topReads.remove().complete(Arrays.asList(series(1, 30), series(2, 20)));
+        Assertions.assertNull(leaderboard.findMostViewed(2));
+
+        repository.seriesReads.get(9L).complete(series(9, 1));
+        List<Series> top = leaderboard.findMostViewed(2);
+        Assertions.assertEquals(Arrays.asList(9L, 1L), ids(top));
+        Assertions.assertEquals(100, top.get(0).getViews());
+    }
+
+    @Test
+    public void resetDropsReadsStartedBefore() {
+        FakeRepository repository = new FakeRepository();
+        MostViewedLeaderboard leaderboard = loaded(repository, 3, series(1, 30));
+
+        leaderboard.reconcile();
+        leaderboard.onReset();
+        Assertions.assertNull(leaderboard.findMostViewed(1));
+        CompletableFuture<List<Series>> stale = repository.topReads.remove();
+        CompletableFuture<List<Series>> fresh = repository.topReads.remove();
+
+        leaderboard.onInserted(series(2, 20));
+        stale.complete(Arrays.asList(series(1, 30)));
+        Assertions.assertNull(leaderboard.findMostViewed(1));
+        fresh.complete(Arrays.asList());
+        Assertions.assertEquals(Arrays.asList(2L), ids(leaderboard.findMostViewed(3)));
+    }
+}
@@ -0,0 +1,44 @@
+package tech.ydb.examples.indexes.load;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class AimdLoadTest {
+    @Test
+    public void synchronousOperationsDontGrowStack() {
+        int count = 200_000;
+        AtomicInteger started = new AtomicInteger();
+        AimdLoad load = AimdLoad.run(1, 4, count, idx -> {
+            started.incrementAndGet();
+            return CompletableFuture.completedFuture(true);
+        });
+
+        LoadStats stats = load.result().join();
+        Assertions.assertEquals(count, started.get());
+        Assertions.assertEquals(count, stats.count());
+        Assertions.assertEquals(0, stats.errors());
+    }
+
+    @Test
+    public void failuresHalveTheLimit() {
+        CompletableFuture<Boolean> blocked = new CompletableFuture<>();
+        AimdLoad load = AimdLoad.run(8, 8, 9, idx -> idx == 0 ? CompletableFuture.completedFuture(false) : blocked);
+        Assertions.assertEquals(4, load.currentLimit());
+
+        blocked.complete(true);
+        LoadStats stats = load.result().join();
+        Assertions.assertEquals(1, stats.errors());
+    }
+
+    @Test
+    public void nullResultIsError() {
+        AimdLoad load = AimdLoad.run(1, 1, 3, idx -> CompletableFuture.completedFuture(idx == 1 ? null : true));
+
+        LoadStats stats = load.result().join();
+        Assertions.assertEquals(3, stats.count());
+        Assertions.assertEquals(1, stats.errors());
+    }
+}
@@ -0,0 +1,26 @@
+package tech.ydb.examples.indexes.load;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class LoadStatsTest {
+    @Test
+    public void falseResultIsError() {
+        LoadStats stats = LoadStats.run(6, 2, idx -> {
+            switch (idx % 3) {
+                case 0:
+                    return CompletableFuture.completedFuture(false);
+                case 1:
+                    CompletableFuture<Boolean> failed = new CompletableFuture<>();
+                    failed.completeExceptionally(new IllegalStateException("failed"));
+                    return failed;
+                default:
+                    return CompletableFuture.completedFuture(true);
+            }
+        });
+        Assertions.assertEquals(6, stats.count());
+        Assertions.assertEquals(4, stats.errors());
+    }
+}
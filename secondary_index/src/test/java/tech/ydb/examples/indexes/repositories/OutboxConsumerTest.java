@@ -0,0 +1,104 @@
+package tech.ydb.examples.indexes.repositories;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import tech.ydb.core.Result;
+import tech.ydb.core.Status;
+import tech.ydb.core.StatusCode;
+import tech.ydb.examples.indexes.QueryTemplate;
+import tech.ydb.proto.ValueProtos;
+import tech.ydb.proto.table.YdbTable;
+import tech.ydb.table.query.DataQueryResult;
+import tech.ydb.table.query.Params;
+import tech.ydb.table.values.proto.ProtoType;
+import tech.ydb.table.values.proto.ProtoValue;
+
+public class OutboxConsumerTest {
+    /**
+     * Outbox with the given oldest change, applying a pass drains it unless applying fails
+     */
+    private static final class FakeRepository extends SeriesRepository {
+        private volatile Instant oldest;
+        private volatile boolean applyFails;
+        private volatile boolean unavailable;
+
+        private FakeRepository() {
+            super(TestRepositories.noTableClient(), "/local", new SimpleMeterRegistry());
+        }
+
+        @Override
+        CompletableFuture<Result<DataQueryResult>> execute(QueryTemplate query, Params params) {
+            if (unavailable || query == QueryTemplate.SERIES_OUTBOX_APPLY && applyFails) {
+                return CompletableFuture.completedFuture(Result.fail(Status.of(StatusCode.UNAVAILABLE)));
+            }
+
+            ValueProtos.ResultSet.Builder resultSet = ValueProtos.ResultSet.newBuilder();
+            if (query == QueryTemplate.SERIES_OUTBOX_OLDEST) {
+                resultSet.addColumns(ValueProtos.Column.newBuilder().setName("oldest_created_at")
+                        .setType(ProtoType.getOptional(ProtoType.getTimestamp())));
+                resultSet.addRows(ValueProtos.Value.newBuilder()
+                        .addItems(oldest != null ? ProtoValue.fromTimestamp(oldest) : ProtoValue.optional()));
+            } else {
+                Assertions.assertEquals(QueryTemplate.SERIES_OUTBOX_APPLY, query);
+                resultSet.addColumns(ValueProtos.Column.newBuilder().setName("cnt")
+                        .setType(ProtoType.getUint64()));
+                resultSet.addColumns(ValueProtos.Column.newBuilder().setName("last_series_id")
+                        .setType(ProtoType.getOptional(ProtoType.getUint64())));
+                resultSet.addRows(ValueProtos.Value.newBuilder()
+                        .addItems(ProtoValue.fromUint64(oldest != null ? 1 : 0))
+                        .addItems(oldest != null ? ProtoValue.fromUint64(1) : ProtoValue.optional()));
+                oldest = null;
+            }
+            YdbTable.ExecuteQueryResult result = YdbTable.ExecuteQueryResult.newBuilder()
+                    .addResultSets(resultSet)
+                    .build();
+            return CompletableFuture.completedFuture(Result.success(new DataQueryResult(result)));
+        }
+    }
+
+    @Test
+    public void lagIsAgeOfOldestPendingChange() {
+        FakeRepository repository = new FakeRepository();
+        OutboxConsumer consumer = new OutboxConsumer(repository, 10, new SimpleMeterRegistry());
+        repository.oldest = Instant.now().minus(Duration.ofSeconds(10));
+
+        Assertions.assertEquals(1L, consumer.applyPending().join());
+        Assertions.assertEquals(0, consumer.lagMillis());
+    }
+
+    @Test
+    public void lagGrowsWhileApplyFails() throws InterruptedException {
+        FakeRepository repository = new FakeRepository();
+        OutboxConsumer consumer = new OutboxConsumer(repository, 10, new SimpleMeterRegistry());
+        repository.oldest = Instant.now().minus(Duration.ofSeconds(10));
+        repository.applyFails = true;
+
+        Assertions.assertThrows(CompletionException.class, () -> consumer.applyPending().join());
+        long lag = consumer.lagMillis();
+        Assertions.assertTrue(lag >= 10000, "lag " + lag);
+
+        Thread.sleep(20);
+        Assertions.assertTrue(consumer.lagMillis() > lag, "lag must grow while changes are not applied");
+    }
+
+    @Test
+    public void lagGrowsWhileDatabaseIsUnavailable() throws InterruptedException {
+        FakeRepository repository = new FakeRepository();
+        OutboxConsumer consumer = new OutboxConsumer(repository, 10, new SimpleMeterRegistry());
+        Assertions.assertEquals(0L, consumer.applyPending().join());
+        Assertions.assertEquals(0, consumer.lagMillis());
+
+        // changes saved after the outbox was seen empty may be pending
+        repository.unavailable = true;
+        Thread.sleep(20);
+        Assertions.assertThrows(CompletionException.class, () -> consumer.applyPending().join());
+        Assertions.assertTrue(consumer.lagMillis() >= 20, "lag " + consumer.lagMillis());
+    }
+}
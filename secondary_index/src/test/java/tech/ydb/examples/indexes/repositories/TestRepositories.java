@@ -0,0 +1,22 @@
+package tech.ydb.examples.indexes.repositories;
+
+import java.lang.reflect.Proxy;
+
+import tech.ydb.table.TableClient;
+
+/**
+ * Fixtures of repository tests
+ */
+public final class TestRepositories {
+    private TestRepositories() { }
+
+    /**
+     * Table client of fake repositories which override queries, every call of it fails
+     */
+    public static TableClient noTableClient() {
+        return (TableClient) Proxy.newProxyInstance(TableClient.class.getClassLoader(),
+                new Class<?>[] {TableClient.class}, (proxy, method, args) -> {
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,61 @@
+package tech.ydb.examples.indexes.repositories;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class TrigramsTest {
+    @Test
+    public void trigramsAreUniqueAndLowerCased() {
+        Assertions.assertEquals(new LinkedHashSet<>(Arrays.asList("aba", "bab")), Trigrams.of("AbAbA"));
+        Assertions.assertEquals(new LinkedHashSet<>(Arrays.asList("the", "he ", "e i", " it")),
+                Trigrams.of("The IT"));
+    }
+
+    @Test
+    public void shortTextHasNoTrigrams() {
+        Assertions.assertTrue(Trigrams.of("").isEmpty());
+        Assertions.assertTrue(Trigrams.of("ab").isEmpty());
+        Assertions.assertEquals(Collections.singleton("abc"), Trigrams.of("abc"));
+    }
+
+    @Test
+    public void trigramsAreCodePoints() {
+        // every emoji is a surrogate pair, a trigram must not split it
+        String text = "😀😁😂😃";
+        Assertions.assertEquals(new LinkedHashSet<>(Arrays.asList(
+                "😀😁😂",
+                "😁😂😃")), Trigrams.of(text));
+        Assertions.assertEquals(Collections.singleton("шоу"), Trigrams.of("ШОУ"));
+    }
+
+    @Test
+    public void intersectSortedLists() {
+        long[] result = Trigrams.intersect(Arrays.asList(
+                new long[] {1, 3, 5, 7, 9, 11},
+                new long[] {3, 4, 5, 11},
+                new long[] {0, 3, 5, 8, 11, 20}));
+        Assertions.assertArrayEquals(new long[] {3, 5, 11}, result);
+    }
+
+    @Test
+    public void intersectWithEmptyOrSingleList() {
+        Assertions.assertArrayEquals(new long[0], Trigrams.intersect(Collections.emptyList()));
+        Assertions.assertArrayEquals(new long[] {2, 4},
+                Trigrams.intersect(Collections.singletonList(new long[] {2, 4})));
+        Assertions.assertArrayEquals(new long[0], Trigrams.intersect(Arrays.asList(new long[] {1, 2}, new long[0])));
+        Assertions.assertArrayEquals(new long[0], Trigrams.intersect(Arrays.asList(new long[] {1, 2}, new long[] {3})));
+    }
+
+    @Test
+    public void intersectDoesNotModifyLists() {
+        long[] first = {1, 2, 3};
+        long[] second = {2, 3, 4};
+        Trigrams.intersect(Arrays.asList(first, second));
+        Assertions.assertArrayEquals(new long[] {1, 2, 3}, first);
+        Assertions.assertArrayEquals(new long[] {2, 3, 4}, second);
+    }
+}
@@ -0,0 +1,166 @@
+package tech.ydb.examples.indexes.repositories;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import tech.ydb.core.Result;
+import tech.ydb.core.Status;
+import tech.ydb.core.StatusCode;
+import tech.ydb.examples.indexes.QueryTemplate;
+import tech.ydb.proto.ValueProtos;
+import tech.ydb.proto.table.YdbTable;
+import tech.ydb.table.query.DataQueryResult;
+import tech.ydb.table.query.Params;
+import tech.ydb.table.values.ListValue;
+import tech.ydb.table.values.PrimitiveValue;
+import tech.ydb.table.values.StructValue;
+
+public class ViewsCounterTest {
+    /**
+     * Records deltas of every batch, fails batches containing the failing series with the given status
+     */
+    private static final class FakeRepository extends SeriesRepository {
+        private final List<Map<Long, Long>> batches = new ArrayList<>();
+        private final long failingSeriesId;
+        private final StatusCode failure;
+
+        private FakeRepository(long failingSeriesId) {
+            this(failingSeriesId, StatusCode.UNAVAILABLE);
+        }
+
+        private FakeRepository(long failingSeriesId, StatusCode failure) {
+            super(TestRepositories.noTableClient(), "/local", new SimpleMeterRegistry());
+            this.failingSeriesId = failingSeriesId;
+            this.failure = failure;
+        }
+
+        @Override
+        synchronized CompletableFuture<Result<DataQueryResult>> execute(QueryTemplate query, Params params) {
+            Assertions.assertEquals(QueryTemplate.SERIES_ADD_VIEWS_BATCH, query);
+            ListValue items = (ListValue) params.values().get("$items");
+            Map<Long, Long> batch = new HashMap<>();
+            for (int idx = 0; idx < items.size(); idx++) {
+                StructValue item = (StructValue) items.get(idx);
+                long seriesId = ((PrimitiveValue) item.getMemberValue(item.getType().getMemberIndex("series_id")))
+                        .getUint64();
+                long delta = ((PrimitiveValue) item.getMemberValue(item.getType().getMemberIndex("delta")))
+                        .getUint64();
+                batch.put(seriesId, delta);
+            }
+            batches.add(batch);
+
+            if (batch.containsKey(failingSeriesId)) {
+                return CompletableFuture.completedFuture(Result.fail(Status.of(failure)));
+            }
+            return CompletableFuture.completedFuture(Result.success(updatedViews()));
+        }
+
+        private synchronized List<Map<Long, Long>> takeBatches() {
+            List<Map<Long, Long>> result = new ArrayList<>(batches);
+            batches.clear();
+            return result;
+        }
+
+        private static DataQueryResult updatedViews() {
+            ValueProtos.ResultSet resultSet = ValueProtos.ResultSet.newBuilder()
+                    .addColumns(ValueProtos.Column.newBuilder().setName("series_id")
+                            .setType(ValueProtos.Type.newBuilder().setTypeId(ValueProtos.Type.PrimitiveTypeId.UINT64)))
+                    .addColumns(ValueProtos.Column.newBuilder().setName("views")
+                            .setType(ValueProtos.Type.newBuilder().setTypeId(ValueProtos.Type.PrimitiveTypeId.UINT64)))
+                    .build();
+            return new DataQueryResult(YdbTable.ExecuteQueryResult.newBuilder().addResultSets(resultSet).build());
+        }
+    }
+
+    @Test
+    public void failedChunkIsRequeued() {
+        long failingSeriesId = 7;
+        FakeRepository repository = new FakeRepository(failingSeriesId);
+        ViewsCounter counter = new ViewsCounter(repository, 4, new SimpleMeterRegistry());
+        int seriesCount = SeriesRepository.DEFAULT_BATCH_SIZE * 3;
+        for (long seriesId = 0; seriesId < seriesCount; seriesId++) {
+            counter.incrementViews(seriesId, seriesId + 1);
+        }
+
+        Assertions.assertFalse(counter.flush().join());
+        List<Map<Long, Long>> first = repository.takeBatches();
+        Assertions.assertEquals(3, first.size());
+        Map<Long, Long> failed = null;
+        for (Map<Long, Long> batch : first) {
+            if (batch.containsKey(failingSeriesId)) {
+                failed = batch;
+            }
+        }
+        Assertions.assertNotNull(failed);
+
+        // only deltas of the failed chunk are written again
+        Assertions.assertFalse(counter.flush().join());
+        List<Map<Long, Long>> second = repository.takeBatches();
+        Assertions.assertEquals(1, second.size());
+        Assertions.assertEquals(failed, second.get(0));
+    }
+
+    @Test
+    public void undeterminedChunkIsCountedAsLost() {
+        long failingSeriesId = 1;
+        FakeRepository repository = new FakeRepository(failingSeriesId, StatusCode.UNDETERMINED);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ViewsCounter counter = new ViewsCounter(repository, 1, meterRegistry);
+        counter.incrementViews(failingSeriesId, 5);
+        counter.incrementViews(failingSeriesId, 2);
+
+        Assertions.assertFalse(counter.flush().join());
+        Assertions.assertEquals(1, repository.takeBatches().size());
+        Assertions.assertEquals(7.0, meterRegistry.counter("ydb.series.views.lost").count());
+
+        // the chunk may be committed, so it is not written again
+        Assertions.assertTrue(counter.flush().join());
+        Assertions.assertEquals(0, repository.takeBatches().size());
+    }
+
+    @Test
+    public void requeuedDeltasAreMergedWithNewOnes() {
+        long failingSeriesId = 1;
+        FakeRepository repository = new FakeRepository(failingSeriesId);
+        ViewsCounter counter = new ViewsCounter(repository, 1, new SimpleMeterRegistry());
+        counter.incrementViews(failingSeriesId, 5);
+
+        Assertions.assertFalse(counter.flush().join());
+        repository.takeBatches();
+
+        counter.incrementViews(failingSeriesId, 3);
+        counter.incrementViews(2, 1);
+        counter.flush().join();
+        List<Map<Long, Long>> batches = repository.takeBatches();
+        Assertions.assertEquals(1, batches.size());
+        Map<Long, Long> expected = new HashMap<>();
+        expected.put(failingSeriesId, 8L);
+        expected.put(2L, 1L);
+        Assertions.assertEquals(expected, batches.get(0));
+    }
+
+    @Test
+    public void successfulFlushWritesEverythingOnce() {
+        FakeRepository repository = new FakeRepository(-1);
+        ViewsCounter counter = new ViewsCounter(repository, 2, new SimpleMeterRegistry());
+        Set<Long> ids = new HashSet<>();
+        for (long seriesId = 0; seriesId < 10; seriesId++) {
+            counter.incrementViews(seriesId, 1);
+            ids.add(seriesId);
+        }
+
+        Assertions.assertTrue(counter.flush().join());
+        Assertions.assertEquals(ids, repository.takeBatches().get(0).keySet());
+        Assertions.assertTrue(counter.flush().join());
+        Assertions.assertEquals(0, repository.takeBatches().size());
+    }
+}
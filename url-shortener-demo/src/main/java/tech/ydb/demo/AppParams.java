@@ -24,6 +24,10 @@ public class AppParams {
     @Parameter(names = { "-c", "--cert" }, description = "Path to PEM certificate", help = true)
     private String certPath;
 
+    @Parameter(names = { "--training-run" },
+            description = "Run given count of shorten/redirect requests against itself and exit", help = true)
+    private int trainingRuns = 0;
+
     private AppParams() { }
 
     public static AppParams parseArgs(String[] args) {
@@ -52,4 +56,8 @@ public class AppParams {
     public String certPath() {
         return this.certPath;
     }
+
+    public int trainingRuns() {
+        return this.trainingRuns;
+    }
 }
@@ -7,6 +7,7 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.jetty.server.Connector;
 import org.eclipse.jetty.server.Server;
@@ -19,8 +20,11 @@ import org.slf4j.LoggerFactory;
 
 import tech.ydb.core.grpc.GrpcTransport;
 import tech.ydb.core.grpc.GrpcTransportBuilder;
+import tech.ydb.demo.log.AccessLog;
 import tech.ydb.demo.rest.RedirectServlet;
+import tech.ydb.demo.rest.ResolveServlet;
 import tech.ydb.demo.rest.URLServlet;
+import tech.ydb.demo.ydb.UrlCache;
 import tech.ydb.demo.ydb.YdbDriver;
 import tech.ydb.demo.ydb.YdbRepository;
 
@@ -34,12 +38,18 @@ public class Application {
     private static final int MIN_THREADS = 10;
     private static final int MAX_THREADS = 100;
     private static final int IDLE_TIMEOUT = 120;
+    private static final int ACCESS_LOG_CAPACITY = 8192;
+    private static final int URL_CACHE_SIZE = 100000;
+    private static final int URL_CACHE_TTL_SECONDS = 60;
 
     private static Application instance;
 
     private final Server server;
     private final GrpcTransport grpc;
     private final YdbDriver driver;
+    private final AccessLog accessLog;
+    private final UrlCache urlCache;
+    private final int listenPort;
 
     public Application(AppParams prms) throws Exception {
         QueuedThreadPool threadPool = new QueuedThreadPool(MAX_THREADS, MIN_THREADS, IDLE_TIMEOUT);
@@ -47,8 +57,11 @@ public class Application {
 
         grpc = createGrpcTransport(prms);
         driver = new YdbDriver(grpc, prms.database());
+        accessLog = new AccessLog(ACCESS_LOG_CAPACITY);
+        urlCache = new UrlCache(URL_CACHE_SIZE, URL_CACHE_TTL_SECONDS, TimeUnit.SECONDS);
 
-        setupJetty(prms.listenPort());
+        listenPort = prms.listenPort();
+        setupJetty(listenPort);
 
         instance = this;
     }
@@ -76,6 +89,7 @@ public class Application {
             context.setContextPath("/");
             context.setBaseResource(Resource.newResource(webRootUri));
             context.addServlet(URLServlet.class, "/url");
+            context.addServlet(ResolveServlet.class, "/resolve");
             context.addServlet(RedirectServlet.class, "/");
 
             server.setHandler(context);
@@ -104,6 +118,7 @@ public class Application {
         new YdbRepository(driver).initTable();
 
         log.info("start jetty web server...");
+        accessLog.start();
         server.start();
     }
 
@@ -112,10 +127,27 @@ public class Application {
         server.join();
     }
 
+    /**
+     * Exercises the main code paths of the application with a few requests. This run is used to record the
+     * classes which are loaded on startup into AppCDS archive or into native-image agent configuration.
+     */
+    void trainingRun(int count) throws IOException {
+        log.info("training run with {} requests...", count);
+        DemoClient client = new DemoClient(URI.create("http://localhost:" + listenPort));
+        for (int idx = 0; idx < count; idx++) {
+            String source = "http://localhost:" + listenPort + "/training/" + idx;
+            String hash = client.shorten(source);
+            if (!source.equals(client.resolve(hash))) {
+                throw new IOException("training run got wrong redirect for " + hash);
+            }
+        }
+    }
+
     void close() {
         try {
             log.info("stop application");
             server.stop();
+            accessLog.close();
             driver.close();
             grpc.close();
         } catch (Exception e) {
@@ -125,8 +157,17 @@ public class Application {
 
     public static void main(String... args) {
         try {
-            Application app = new Application(AppParams.parseArgs(args));
+            AppParams prms = AppParams.parseArgs(args);
+            Application app = new Application(prms);
             app.start();
+            if (prms.trainingRuns() > 0) {
+                try {
+                    app.trainingRun(prms.trainingRuns());
+                } finally {
+                    app.close();
+                }
+                return;
+            }
             Runtime.getRuntime().addShutdownHook(new Thread(app::close));
             app.join();
         } catch (Exception e) {
@@ -137,4 +178,12 @@ public class Application {
     public static YdbDriver ydp() {
         return instance.driver;
     }
+
+    public static AccessLog accessLog() {
+        return instance.accessLog;
+    }
+
+    public static UrlCache urlCache() {
+        return instance.urlCache;
+    }
 }
@@ -0,0 +1,99 @@
+package tech.ydb.demo;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Minimal HTTP client of the demo API. It is used by the training run of the application and by
+ * {@link StartupBenchmark} to drive the same code paths as a real user does.
+ */
+public class DemoClient {
+    private static final int CONNECT_TIMEOUT_MS = 1000;
+    private static final int READ_TIMEOUT_MS = 10000;
+
+    private final URI appURI;
+
+    public DemoClient(URI appURI) {
+        this.appURI = appURI;
+    }
+
+    /**
+     * Creates short url for source and returns its hash
+     *
+     * @param source url to shorten
+     * @return hash of the created short url
+     * @throws IOException if application is not available or returns unexpected response
+     */
+    public String shorten(String source) throws IOException {
+        HttpURLConnection conn = open("/url");
+        try {
+            conn.setRequestMethod("POST");
+            conn.setDoOutput(true);
+            try (JsonWriter writer = new JsonWriter(
+                    new OutputStreamWriter(conn.getOutputStream(), StandardCharsets.UTF_8))) {
+                writer.beginObject();
+                writer.name("source").value(source);
+                writer.endObject();
+            }
+
+            if (conn.getResponseCode() != 200) {
+                throw new IOException("unexpected response code " + conn.getResponseCode());
+            }
+
+            JsonElement json = JsonParser.parseString(readBody(conn.getInputStream()));
+            if (json == null || !json.isJsonObject() || !json.getAsJsonObject().has("hash")) {
+                throw new IOException("invalid json response");
+            }
+            return json.getAsJsonObject().get("hash").getAsString();
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+    /**
+     * Resolves short url and returns redirect target
+     *
+     * @param hash hash of short url
+     * @return value of Location header or null if application didn't redirect
+     * @throws IOException if application is not available
+     */
+    public String resolve(String hash) throws IOException {
+        HttpURLConnection conn = open("/" + hash);
+        try {
+            conn.setRequestMethod("GET");
+            conn.setInstanceFollowRedirects(false);
+            if (conn.getResponseCode() != 302) {
+                return null;
+            }
+            return conn.getHeaderField("Location");
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+    private HttpURLConnection open(String path) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) appURI.resolve(path).toURL().openConnection();
+        conn.setConnectTimeout(CONNECT_TIMEOUT_MS);
+        conn.setReadTimeout(READ_TIMEOUT_MS);
+        return conn;
+    }
+
+    private static String readBody(InputStream is) throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int len;
+        while ((len = is.read(buffer)) >= 0) {
+            os.write(buffer, 0, len);
+        }
+        return new String(os.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
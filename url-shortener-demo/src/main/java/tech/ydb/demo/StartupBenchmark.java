@@ -0,0 +1,143 @@
+package tech.ydb.demo;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.Parameter;
+
+/**
+ * Measures time from the process launch to the first successful redirect for each packaging variant of the
+ * application: plain JVM, JVM with AppCDS archive and GraalVM native image.
+ *
+ * <pre>
+ *   mvn -Pappcds,native package -Dydb.endpoint=localhost:2136 -Dydb.database=/local
+ *   java -cp target/url-shortener-demo.jar tech.ydb.demo.StartupBenchmark -e localhost:2136 -d /local
+ * </pre>
+ */
+public class StartupBenchmark {
+    private static final long ATTEMPT_DELAY_MS = 5;
+
+    private static final class Args {
+        @Parameter(names = { "-e", "--endpoint" }, description = "YDB endpoint", help = true)
+        String endpoint = "localhost:2136";
+
+        @Parameter(names = { "-d", "--database" }, description = "YDB database name", help = true)
+        String database = "/local";
+
+        @Parameter(names = { "-p", "--listen-port" }, description = "Listen port of tested application", help = true)
+        int listenPort = 9100;
+
+        @Parameter(names = { "--target" }, description = "Directory with build artifacts", help = true)
+        String target = "target";
+
+        @Parameter(names = { "--variants" }, description = "Comma separated list of variants: jvm,appcds,native")
+        String variants = "jvm,appcds,native";
+
+        @Parameter(names = { "--runs" }, description = "Count of launches for each variant", help = true)
+        int runs = 5;
+
+        @Parameter(names = { "--timeout" }, description = "Startup timeout in seconds", help = true)
+        int timeoutSeconds = 60;
+    }
+
+    private final Args args;
+
+    private StartupBenchmark(Args args) {
+        this.args = args;
+    }
+
+    private List<String> command(String variant) {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        String jar = Paths.get(args.target, "url-shortener-demo.jar").toString();
+
+        List<String> cmd = new ArrayList<>();
+        switch (variant) {
+            case "jvm":
+                cmd.addAll(Arrays.asList(java, "-Xshare:auto", "-jar", jar));
+                break;
+            case "appcds":
+                String archive = Paths.get(args.target, "url-shortener-demo.jsa").toString();
+                cmd.addAll(Arrays.asList(java, "-XX:SharedArchiveFile=" + archive, "-Xshare:auto", "-jar", jar));
+                break;
+            case "native":
+                cmd.add(Paths.get(args.target, "url-shortener-demo").toString());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown variant " + variant);
+        }
+
+        cmd.addAll(Arrays.asList(
+                "-p", String.valueOf(args.listenPort),
+                "-e", args.endpoint,
+                "-d", args.database
+        ));
+        return cmd;
+    }
+
+    private long measureOnce(String variant) throws IOException, InterruptedException {
+        URI appURI = URI.create("http://localhost:" + args.listenPort);
+        DemoClient client = new DemoClient(appURI);
+        String source = appURI + "/startup";
+
+        ProcessBuilder pb = new ProcessBuilder(command(variant))
+                .redirectErrorStream(true)
+                .redirectOutput(new File(args.target, "startup-" + variant + ".log"));
+
+        long startedAt = System.nanoTime();
+        long deadline = startedAt + TimeUnit.SECONDS.toNanos(args.timeoutSeconds);
+        Process process = pb.start();
+        try {
+            while (System.nanoTime() < deadline) {
+                if (!process.isAlive()) {
+                    throw new IOException(variant + " exited with code " + process.exitValue());
+                }
+                try {
+                    String hash = client.shorten(source);
+                    if (source.equals(client.resolve(hash))) {
+                        return System.nanoTime() - startedAt;
+                    }
+                } catch (IOException e) {
+                    // application is not ready yet
+                }
+                Thread.sleep(ATTEMPT_DELAY_MS);
+            }
+            throw new IOException(variant + " didn't start in " + args.timeoutSeconds + " seconds");
+        } finally {
+            process.destroy();
+            if (!process.waitFor(args.timeoutSeconds, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private void run() throws IOException, InterruptedException {
+        System.out.printf("%-8s %6s %10s %10s %10s%n", "variant", "runs", "min, ms", "median, ms", "max, ms");
+        for (String variant : args.variants.split(",")) {
+            List<Long> times = new ArrayList<>(args.runs);
+            for (int run = 0; run < args.runs; run++) {
+                times.add(TimeUnit.NANOSECONDS.toMillis(measureOnce(variant.trim())));
+            }
+            Collections.sort(times);
+            System.out.printf("%-8s %6d %10d %10d %10d%n", variant.trim(), times.size(),
+                    times.get(0), times.get(times.size() / 2), times.get(times.size() - 1));
+        }
+    }
+
+    public static void main(String... params) throws Exception {
+        Args args = new Args();
+        JCommander.newBuilder()
+            .addObject(args)
+            .build()
+            .parse(params);
+
+        new StartupBenchmark(args).run();
+    }
+}
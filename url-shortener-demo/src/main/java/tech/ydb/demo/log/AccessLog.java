@@ -0,0 +1,150 @@
+package tech.ydb.demo.log;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Asynchronous access log. Request threads put records into a preallocated ring buffer without locks and
+ * allocations, the dedicated writer thread drains the buffer and writes records to the
+ * {@code tech.ydb.demo.access} logger. If the writer can't keep up, new records are dropped and counted.
+ */
+public class AccessLog implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(AccessLog.class);
+    private static final Logger accessLog = LoggerFactory.getLogger("tech.ydb.demo.access");
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final class Entry {
+        private long traceId;
+        private String method;
+        private String target;
+        private int status;
+        private long parseNanos;
+        private long ydbNanos;
+        private long totalNanos;
+    }
+
+    private final Entry[] entries;
+    private final int mask;
+    /** Sequence number + 1 of the record published in each slot */
+    private final AtomicLongArray published;
+    /** Next sequence number to be claimed by producers */
+    private final AtomicLong tail = new AtomicLong();
+    /** Next sequence number to be read by writer */
+    private volatile long head = 0;
+
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean stopped = false;
+
+    public AccessLog(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two, but was " + capacity);
+        }
+
+        this.entries = new Entry[capacity];
+        for (int idx = 0; idx < capacity; idx++) {
+            entries[idx] = new Entry();
+        }
+        this.mask = capacity - 1;
+        this.published = new AtomicLongArray(capacity);
+
+        this.writer = new Thread(this::writeLoop, "access-log-writer");
+        this.writer.setDaemon(true);
+    }
+
+    public void start() {
+        writer.start();
+    }
+
+    /**
+     * Puts record to the log. Never blocks, the record is dropped if buffer is full
+     *
+     * @param traceId trace id of request
+     * @param method HTTP method and servlet path of handler, e.g. "POST /url", must be a constant
+     * @param target requested hash or url, may be null
+     * @param status response status code
+     * @param parseNanos time spent on reading and validation of request
+     * @param ydbNanos time spent on YDB request
+     * @param totalNanos total time of request processing
+     */
+    public void record(long traceId, String method, String target, int status,
+            long parseNanos, long ydbNanos, long totalNanos) {
+        long seq;
+        do {
+            seq = tail.get();
+            if (seq - head >= entries.length) {
+                dropped.incrementAndGet();
+                return;
+            }
+        } while (!tail.compareAndSet(seq, seq + 1));
+
+        int idx = (int) (seq & mask);
+        Entry entry = entries[idx];
+        entry.traceId = traceId;
+        entry.method = method;
+        entry.target = target;
+        entry.status = status;
+        entry.parseNanos = parseNanos;
+        entry.ydbNanos = ydbNanos;
+        entry.totalNanos = totalNanos;
+
+        // publish the slot, writer reads the entry fields only after this store
+        published.lazySet(idx, seq + 1);
+    }
+
+    public long droppedCount() {
+        return dropped.get();
+    }
+
+    private void writeLoop() {
+        StringBuilder line = new StringBuilder(256);
+        while (true) {
+            long seq = head;
+            int idx = (int) (seq & mask);
+            if (published.get(idx) != seq + 1) {
+                if (stopped && seq == tail.get()) {
+                    return;
+                }
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+
+            Entry entry = entries[idx];
+            line.setLength(0);
+            line.append(TraceId.toHex(entry.traceId))
+                    .append(' ').append(entry.method)
+                    .append(' ').append(entry.target)
+                    .append(' ').append(entry.status)
+                    .append(" parse=").append(TimeUnit.NANOSECONDS.toMicros(entry.parseNanos)).append("us")
+                    .append(" ydb=").append(TimeUnit.NANOSECONDS.toMicros(entry.ydbNanos)).append("us")
+                    .append(" total=").append(TimeUnit.NANOSECONDS.toMicros(entry.totalNanos)).append("us");
+            entry.target = null;
+
+            // release the slot for producers
+            head = seq + 1;
+
+            accessLog.info(line.toString());
+        }
+    }
+
+    @Override
+    public void close() {
+        stopped = true;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        long droppedCount = dropped.get();
+        if (droppedCount > 0) {
+            log.warn("access log dropped {} records", droppedCount);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package tech.ydb.demo.log;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Compact 64-bit request trace id. The same id is sent to YDB with the request settings, written to the
+ * access log and returned to the client in {@code X-Trace-Id} header.
+ */
+public class TraceId {
+    public static final String HEADER = "X-Trace-Id";
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private TraceId() { }
+
+    public static long next() {
+        return ThreadLocalRandom.current().nextLong();
+    }
+
+    public static String toHex(long traceId) {
+        char[] chars = new char[16];
+        for (int idx = 15; idx >= 0; idx--) {
+            chars[idx] = HEX_DIGITS[(int) (traceId & 0xF)];
+            traceId >>>= 4;
+        }
+        return new String(chars);
+    }
+}
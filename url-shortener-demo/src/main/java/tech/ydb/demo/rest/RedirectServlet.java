@@ -10,6 +10,7 @@ import javax.servlet.http.HttpServletResponse;
 import org.eclipse.jetty.servlet.DefaultServlet;
 
 import tech.ydb.demo.Application;
+import tech.ydb.demo.log.TraceId;
 import tech.ydb.demo.ydb.HashTool;
 import tech.ydb.demo.ydb.UrlRecord;
 import tech.ydb.demo.ydb.YdbException;
@@ -28,23 +29,51 @@ public class RedirectServlet extends DefaultServlet {
 
     @Override
     public void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
-        if (req.getRequestURI().length() > 1) {
-            // Remove trailing '/'
-            String hash = req.getRequestURI().substring(1);
-            if (HashTool.isHash(hash)) {
-                try {
-                    Optional<UrlRecord> record = repository().findByHash(hash);
-                    if (record.isPresent()) {
-                        resp.setHeader("Location", record.get().url());
+        long startedAt = System.nanoTime();
+        long traceId = TraceId.next();
+        String traceIdHex = TraceId.toHex(traceId);
+        resp.setHeader(TraceId.HEADER, traceIdHex);
+
+        String uri = req.getRequestURI();
+        long parsedAt = startedAt;
+        long ydbDoneAt = startedAt;
+        try {
+            if (uri.length() > 1) {
+                // Remove trailing '/'
+                String hash = uri.substring(1);
+                boolean isHash = HashTool.isHash(hash);
+                parsedAt = System.nanoTime();
+                ydbDoneAt = parsedAt;
+                if (isHash) {
+                    UrlRecord cached = Application.urlCache().get(hash);
+                    if (cached != null) {
+                        resp.setHeader("Location", cached.url());
                         resp.setStatus(302);
                         return;
                     }
-                } catch (YdbException e) {
-                    throw new ServletException(e.getMessage(), e);
+
+                    try {
+                        Optional<UrlRecord> record = repository().findByHash(hash, traceIdHex);
+                        if (record.isPresent()) {
+                            Application.urlCache().put(record.get());
+                            resp.setHeader("Location", record.get().url());
+                            resp.setStatus(302);
+                            return;
+                        }
+                    } catch (YdbException e) {
+                        resp.setStatus(500);
+                        throw new ServletException(e.getMessage(), e);
+                    } finally {
+                        ydbDoneAt = System.nanoTime();
+                    }
                 }
             }
-        }
 
-        super.doGet(req, resp);
+            super.doGet(req, resp);
+        } finally {
+            long finishedAt = System.nanoTime();
+            Application.accessLog().record(traceId, "GET /", uri, resp.getStatus(),
+                    parsedAt - startedAt, ydbDoneAt - parsedAt, finishedAt - startedAt);
+        }
     }
 }
@@ -0,0 +1,124 @@
+package tech.ydb.demo.rest;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+
+import tech.ydb.demo.Application;
+import tech.ydb.demo.log.TraceId;
+import tech.ydb.demo.ydb.HashTool;
+import tech.ydb.demo.ydb.UrlCache;
+import tech.ydb.demo.ydb.UrlRecord;
+import tech.ydb.demo.ydb.YdbException;
+import tech.ydb.demo.ydb.YdbRepository;
+
+/**
+ * Resolves many short urls with one request. Accepts <code>{ "hashes": ["...", ...] }</code> and returns
+ * <code>[{ "hash": "...", "url": "..." }, ...]</code> in order of the request. Unknown and invalid hashes are
+ * returned with null url.
+ */
+public class ResolveServlet extends HttpServlet {
+    private static final long serialVersionUID = 4632911786459208391L;
+
+    private static final int MAX_HASHES = 10000;
+
+    private YdbRepository repository() {
+        return new YdbRepository(Application.ydp());
+    }
+
+    @Override
+    public void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        long startedAt = System.nanoTime();
+        long traceId = TraceId.next();
+        String traceIdHex = TraceId.toHex(traceId);
+        resp.setHeader(TraceId.HEADER, traceIdHex);
+
+        long parsedAt = startedAt;
+        long ydbDoneAt = startedAt;
+        try {
+            JsonElement json = JsonParser.parseReader(new InputStreamReader(req.getInputStream()));
+            parsedAt = System.nanoTime();
+            ydbDoneAt = parsedAt;
+            if (json == null || !json.isJsonObject() || !json.getAsJsonObject().has("hashes")
+                    || !json.getAsJsonObject().get("hashes").isJsonArray()) {
+                resp.sendError(400, "unreadable request");
+                return;
+            }
+
+            JsonArray array = json.getAsJsonObject().getAsJsonArray("hashes");
+            if (array.size() > MAX_HASHES) {
+                resp.sendError(400, "too many hashes, max is " + MAX_HASHES);
+                return;
+            }
+
+            // de-duplicate, keeping the order of the request
+            Set<String> requested = new LinkedHashSet<>();
+            for (JsonElement hash : array) {
+                if (hash.isJsonPrimitive()) {
+                    requested.add(hash.getAsString());
+                }
+            }
+
+            // resolve everything before writing, so a failed lookup can still be answered with an error status
+            UrlCache cache = Application.urlCache();
+            Map<String, String> resolved = new HashMap<>();
+            List<String> misses = new ArrayList<>();
+            for (String hash : requested) {
+                if (!HashTool.isHash(hash)) {
+                    continue;
+                }
+                UrlRecord record = cache.get(hash);
+                if (record != null) {
+                    resolved.put(hash, record.url());
+                } else {
+                    misses.add(hash);
+                }
+            }
+
+            if (!misses.isEmpty()) {
+                try {
+                    repository().findByHashes(misses, traceIdHex, record -> {
+                        cache.put(record);
+                        resolved.put(record.hash(), record.url());
+                    });
+                } catch (YdbException e) {
+                    resp.setStatus(500);
+                    throw new ServletException(e.getMessage(), e);
+                } finally {
+                    ydbDoneAt = System.nanoTime();
+                }
+            }
+
+            resp.setContentType("application/json");
+            try (JsonWriter writer = new JsonWriter(resp.getWriter())) {
+                writer.beginArray();
+                for (String hash : requested) {
+                    writer.beginObject();
+                    writer.name("hash").value(hash);
+                    writer.name("url").value(resolved.get(hash));
+                    writer.endObject();
+                }
+                writer.endArray();
+            }
+        } finally {
+            long finishedAt = System.nanoTime();
+            Application.accessLog().record(traceId, "POST /resolve", null, resp.getStatus(),
+                    parsedAt - startedAt, ydbDoneAt - parsedAt, finishedAt - startedAt);
+        }
+    }
+}
@@ -13,6 +13,7 @@ import com.google.gson.JsonParser;
 import com.google.gson.stream.JsonWriter;
 
 import tech.ydb.demo.Application;
+import tech.ydb.demo.log.TraceId;
 import tech.ydb.demo.ydb.UrlRecord;
 import tech.ydb.demo.ydb.YdbException;
 import tech.ydb.demo.ydb.YdbRepository;
@@ -30,25 +31,45 @@ public class URLServlet extends HttpServlet {
 
     @Override
     public void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
-        JsonElement json = JsonParser.parseReader(new InputStreamReader(req.getInputStream()));
-        if (json == null || !json.isJsonObject() || !json.getAsJsonObject().has("source")) {
-            resp.sendError(400, "unreadable request");
-            return;
-        }
-
-        String source = json.getAsJsonObject().get("source").getAsString();
-        UrlRecord record = new UrlRecord(source);
+        long startedAt = System.nanoTime();
+        long traceId = TraceId.next();
+        String traceIdHex = TraceId.toHex(traceId);
+        resp.setHeader(TraceId.HEADER, traceIdHex);
 
+        String source = null;
+        long parsedAt = startedAt;
+        long ydbDoneAt = startedAt;
         try {
-            repository().insertRecord(record);
-        } catch (YdbException e) {
-            throw new ServletException(e.getMessage(), e);
-        }
+            JsonElement json = JsonParser.parseReader(new InputStreamReader(req.getInputStream()));
+            parsedAt = System.nanoTime();
+            ydbDoneAt = parsedAt;
+            if (json == null || !json.isJsonObject() || !json.getAsJsonObject().has("source")) {
+                resp.sendError(400, "unreadable request");
+                return;
+            }
+
+            source = json.getAsJsonObject().get("source").getAsString();
+            UrlRecord record = new UrlRecord(source);
+
+            try {
+                repository().insertRecord(record, traceIdHex);
+                Application.urlCache().put(record);
+            } catch (YdbException e) {
+                resp.setStatus(500);
+                throw new ServletException(e.getMessage(), e);
+            } finally {
+                ydbDoneAt = System.nanoTime();
+            }
 
-        try (JsonWriter writer = new JsonWriter(resp.getWriter())) {
-            writer.beginObject();
-            writer.name("hash").value(record.hash());
-            writer.endObject();
+            try (JsonWriter writer = new JsonWriter(resp.getWriter())) {
+                writer.beginObject();
+                writer.name("hash").value(record.hash());
+                writer.endObject();
+            }
+        } finally {
+            long finishedAt = System.nanoTime();
+            Application.accessLog().record(traceId, "POST /url", source, resp.getStatus(),
+                    parsedAt - startedAt, ydbDoneAt - parsedAt, finishedAt - startedAt);
         }
     }
 }
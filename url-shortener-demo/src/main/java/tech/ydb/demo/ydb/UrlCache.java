@@ -0,0 +1,56 @@
+package tech.ydb.demo.ydb;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded in-memory cache of short urls. Cached records can become stale: hashes are 32-bit and may collide,
+ * records are written with UPSERT, the table is recreated on startup and other instances of the application write
+ * to the same table. So every record expires after the time to live, which bounds how long a stale url is served.
+ * When cache is full an arbitrary entry is evicted.
+ */
+public class UrlCache {
+    private static final class Entry {
+        private final String url;
+        private final long expiresAt;
+
+        private Entry(String url, long expiresAt) {
+            this.url = url;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final ConcurrentHashMap<String, Entry> urls;
+
+    public UrlCache(int maxSize, long ttl, TimeUnit unit) {
+        this.maxSize = maxSize;
+        this.ttlNanos = unit.toNanos(ttl);
+        this.urls = new ConcurrentHashMap<>(Math.min(maxSize, 1024));
+    }
+
+    public UrlRecord get(String hash) {
+        Entry entry = urls.get(hash);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.expiresAt >= 0) {
+            urls.remove(hash, entry);
+            return null;
+        }
+        return new UrlRecord(hash, entry.url);
+    }
+
+    public void put(UrlRecord record) {
+        if (urls.size() >= maxSize) {
+            Iterator<String> it = urls.keySet().iterator();
+            if (it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+        urls.put(record.hash(), new Entry(record.url(), System.nanoTime() + ttlNanos));
+    }
+}
@@ -1,19 +1,29 @@
 package tech.ydb.demo.ydb;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import tech.ydb.core.Result;
 import tech.ydb.core.Status;
 import tech.ydb.core.UnexpectedResultException;
+import tech.ydb.examples.mapping.RowMapper;
 import tech.ydb.table.description.TableDescription;
 import tech.ydb.table.query.DataQueryResult;
 import tech.ydb.table.query.Params;
 import tech.ydb.table.result.ResultSetReader;
+import tech.ydb.table.settings.ExecuteDataQuerySettings;
 import tech.ydb.table.transaction.TxControl;
+import tech.ydb.table.values.ListType;
 import tech.ydb.table.values.PrimitiveType;
 import tech.ydb.table.values.PrimitiveValue;
+import tech.ydb.table.values.Value;
 
 /**
  *
@@ -23,11 +33,17 @@ public class YdbRepository {
     private static final Logger log = LoggerFactory.getLogger(YdbRepository.class);
 
     private static final String TABLE_NAME = "urls";
+    private static final int HASHES_CHUNK_SIZE = 100;
+    private static final int HASHES_MAX_CONCURRENCY = 4;
     private static final TableDescription TABLE_DESCRIPTION = TableDescription.newBuilder()
             .addNullableColumn("src", PrimitiveType.Text)
             .addNullableColumn("hash", PrimitiveType.Text)
             .setPrimaryKey("hash")
             .build();
+    private static final RowMapper<UrlRecord> URL_RECORD_MAPPER = RowMapper.builder(UrlRecord.class)
+            .column("hash")
+            .column("src")
+            .build();
 
     private final YdbDriver driver;
     private final String tablePath;
@@ -56,7 +72,7 @@ public class YdbRepository {
         }
     }
 
-    public void insertRecord(UrlRecord record) throws YdbException  {
+    public void insertRecord(UrlRecord record, String traceId) throws YdbException  {
         try {
             String query = "\n"
                     + "DECLARE $url AS Text;\n"
@@ -69,9 +85,10 @@ public class YdbRepository {
             );
 
             TxControl<?> txControl = TxControl.serializableRw().setCommitTx(true);
+            ExecuteDataQuerySettings settings = new ExecuteDataQuerySettings().setTraceId(traceId);
 
             driver.retryCtx()
-                    .supplyResult(session -> session.executeDataQuery(query, txControl, params))
+                    .supplyResult(session -> session.executeDataQuery(query, txControl, params, settings))
                     .join().getStatus().expectSuccess("can't read query result");
         } catch (UnexpectedResultException e) {
             log.error("insert record problem", e);
@@ -79,7 +96,7 @@ public class YdbRepository {
         }
     }
 
-    public Optional<UrlRecord> findByHash(String hash) throws YdbException  {
+    public Optional<UrlRecord> findByHash(String hash, String traceId) throws YdbException  {
         try {
             String query = "\n"
                     + "DECLARE $hash AS Text;\n"
@@ -90,9 +107,10 @@ public class YdbRepository {
             );
 
             TxControl<?> txControl = TxControl.serializableRw();
+            ExecuteDataQuerySettings settings = new ExecuteDataQuerySettings().setTraceId(traceId);
 
             DataQueryResult result = driver.retryCtx()
-                    .supplyResult(session -> session.executeDataQuery(query, txControl, params))
+                    .supplyResult(session -> session.executeDataQuery(query, txControl, params, settings))
                     .join().getValue();
 
             if (result.isEmpty()) {
@@ -105,13 +123,59 @@ public class YdbRepository {
                 return Optional.empty();
             }
 
-            String rowHash = rs.getColumn("hash").getText();
-            String rowSource = rs.getColumn("src").getText();
-
-            return Optional.of(new UrlRecord(rowHash, rowSource));
+            return Optional.of(URL_RECORD_MAPPER.bind(rs).map());
         } catch (UnexpectedResultException e) {
             log.error("select record problem", e);
             throw new YdbException(e.getMessage(), e);
         }
     }
+
+    /**
+     * Finds records for many hashes at once. Hashes are split into chunks of {@value #HASHES_CHUNK_SIZE}, up to
+     * {@value #HASHES_MAX_CONCURRENCY} chunks are requested in parallel and found records are passed to consumer
+     * chunk by chunk in the calling thread.
+     *
+     * @param hashes list of unique hashes
+     * @param traceId trace id of request
+     * @param consumer consumer of found records
+     * @throws YdbException if any of the queries failed
+     */
+    public void findByHashes(List<String> hashes, String traceId, Consumer<UrlRecord> consumer)
+            throws YdbException {
+        String query = "\n"
+                + "DECLARE $hashes AS List<Text>;\n"
+                + "SELECT hash, src FROM " + TABLE_NAME + " WHERE hash IN $hashes;";
+
+        TxControl<?> txControl = TxControl.onlineRo();
+        ExecuteDataQuerySettings settings = new ExecuteDataQuerySettings().setTraceId(traceId);
+
+        Deque<CompletableFuture<Result<DataQueryResult>>> inFlight = new ArrayDeque<>();
+        int from = 0;
+        try {
+            while (from < hashes.size() || !inFlight.isEmpty()) {
+                // the next chunk starts as soon as the oldest one is consumed
+                while (inFlight.size() < HASHES_MAX_CONCURRENCY && from < hashes.size()) {
+                    List<String> chunk = hashes.subList(from, Math.min(from + HASHES_CHUNK_SIZE, hashes.size()));
+                    Value<?>[] values = new Value<?>[chunk.size()];
+                    for (int idx = 0; idx < values.length; idx++) {
+                        values[idx] = PrimitiveValue.newText(chunk.get(idx));
+                    }
+                    Params params = Params.of("$hashes", ListType.of(PrimitiveType.Text).newValueOwn(values));
+
+                    inFlight.add(driver.retryCtx()
+                            .supplyResult(session -> session.executeDataQuery(query, txControl, params, settings)));
+                    from += HASHES_CHUNK_SIZE;
+                }
+
+                ResultSetReader rs = inFlight.remove().join().getValue().getResultSet(0);
+                RowMapper<UrlRecord>.Bound mapper = URL_RECORD_MAPPER.bind(rs);
+                while (rs.next()) {
+                    consumer.accept(mapper.map());
+                }
+            }
+        } catch (UnexpectedResultException e) {
+            log.error("select records problem", e);
+            throw new YdbException(e.getMessage(), e);
+        }
+    }
 }
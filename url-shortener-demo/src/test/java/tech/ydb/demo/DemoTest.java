@@ -99,6 +99,23 @@ public class DemoTest {
 
         // Create and send hash request to redirect to index.html
         httpGETRedirect("/" + hash, appURI.toString());
+
+        // Resolve known, unknown and duplicated hashes with one request
+        httpPOST("/resolve", "{ 'hash': [] }", 400, "check resolve payload validation");
+        String resolved = httpPOST("/resolve", "{ 'hashes': ['" + hash + "', '00000000', '" + hash + "'] }");
+        JsonElement resolvedJson = JsonParser.parseString(resolved);
+
+        Assertions.assertTrue(resolvedJson.isJsonArray(), "invalid resolve response");
+        Assertions.assertEquals(2, resolvedJson.getAsJsonArray().size(), "resolve response size");
+        for (JsonElement item : resolvedJson.getAsJsonArray()) {
+            String itemHash = item.getAsJsonObject().get("hash").getAsString();
+            JsonElement itemUrl = item.getAsJsonObject().get("url");
+            if (hash.equals(itemHash)) {
+                Assertions.assertEquals(appURI.toString(), itemUrl.getAsString(), "resolved url");
+            } else {
+                Assertions.assertTrue(itemUrl.isJsonNull(), "unknown hash must be resolved to null");
+            }
+        }
     }
 
     private String httpGET(String path) throws IOException, InterruptedException {
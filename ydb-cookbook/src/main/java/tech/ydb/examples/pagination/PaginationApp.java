@@ -1,22 +1,21 @@
 package tech.ydb.examples.pagination;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import tech.ydb.core.grpc.GrpcTransport;
 import tech.ydb.examples.App;
 import tech.ydb.examples.AppRunner;
+import tech.ydb.examples.mapping.RowMapper;
+import tech.ydb.examples.paging.KeysetPaginator;
 import tech.ydb.examples.pagination.model.School;
 import tech.ydb.table.SessionRetryContext;
 import tech.ydb.table.TableClient;
 import tech.ydb.table.description.TableColumn;
 import tech.ydb.table.description.TableDescription;
-import tech.ydb.table.query.DataQueryResult;
 import tech.ydb.table.query.Params;
-import tech.ydb.table.result.ResultSetReader;
+import tech.ydb.table.settings.DescribeTableSettings;
 import tech.ydb.table.transaction.TxControl;
 import tech.ydb.table.values.PrimitiveType;
-import tech.ydb.table.values.PrimitiveValue;
 
 
 /**
@@ -28,6 +27,12 @@ import tech.ydb.table.values.PrimitiveValue;
  */
 public class PaginationApp implements App {
     private static final int MAX_PAGES = 10;
+    private static final RowMapper<School> SCHOOL_MAPPER = RowMapper.builder(School.class)
+            .column("city")
+            .column("number")
+            .column("address")
+            .build();
+
     private final String path;
     private final TableClient tableClient;
     private final SessionRetryContext retryCtx;
@@ -49,31 +54,49 @@ public class PaginationApp implements App {
     @Override
     public void run() {
         createTable();
-        describeTable();
+        TableDescription schoolsTable = describeTable();
         fillTableDataTransaction();
 
-        final long limit = 3;
+        final int limit = 3;
 
         System.out.println("--[ Pagination ] -----------------------");
         System.out.println("limit: " + limit);
 
+        /* Every page continues after the primary key of the last row of the previous page:
+         WHERE city > $k0 OR (city = $k0 AND number > $k1) ORDER BY city, number LIMIT $limit.
+         A tuple comparison (city, number) > ($k0, $k1) isn't used, it is NULL when a key part is NULL; a NULL
+         part of the last key is compared with IS NULL and IS NOT NULL instead. The conditions follow the order
+         of the fields in the primary key, so the page is read by a key range instead of a table full scan. The
+         paginator builds such queries from the table description and reads the next page while the current one
+         is printed. */
+
+        KeysetPaginator<School> paginator = KeysetPaginator
+                .builder(retryCtx, path + "/schools", schoolsTable, SCHOOL_MAPPER)
+                .pageSize(limit)
+                .build();
+
         int page = 0;
-        School.Key lastKey = new School.Key("", 0);
-        while (page <= MAX_PAGES) {
+        for (List<School> schools : paginator) {
             ++page;
-            List<School> schools = selectPaging(limit, lastKey);
-            if (schools.isEmpty()) {
-                break;
-            }
-
             System.out.println("-[ page: " + page + " ]-");
             for (School school : schools) {
                 System.out.println("    " + school);
             }
-
-            School lastSchool = schools.get(schools.size() - 1);
-            lastKey = lastSchool.toKey();
+            if (page >= MAX_PAGES) {
+                break;
+            }
         }
+
+        System.out.println("--[ Snapshot pagination ] --------------");
+
+        /* Partitions of the table are read in parallel inside one snapshot read-only transaction, so all pages see
+         the table at the same point in time, pages of different partitions are interleaved. */
+
+        long rows = paginator.forEachPageInSnapshot(schools -> {
+            School first = schools.get(0);
+            System.out.println("    " + schools.size() + " schools from " + first.getCity() + " #" + first.getNumber());
+        }).join();
+        System.out.println("read " + rows + " schools");
     }
 
     /**
@@ -95,11 +118,13 @@ public class PaginationApp implements App {
     /**
      * Describe existing table.
      */
-    private void describeTable() {
+    private TableDescription describeTable() {
         System.out.println("--[ DescribeTable ]---------------------------------------");
 
         String tablePath = path + "/schools";
-        TableDescription tableDesc = retryCtx.supplyResult(session -> session.describeTable(tablePath))
+        DescribeTableSettings settings = new DescribeTableSettings();
+        settings.setIncludeShardKeyBounds(true);
+        TableDescription tableDesc = retryCtx.supplyResult(session -> session.describeTable(tablePath, settings))
                 .join()
                 .getValue();
 
@@ -110,6 +135,7 @@ public class PaginationApp implements App {
             System.out.println("    " + column.getName() + ": " + column.getType() + (isPrimary ? " (PK)" : ""));
         }
         System.out.println();
+        return tableDesc;
     }
 
     /**
@@ -137,44 +163,6 @@ public class PaginationApp implements App {
                 .getValue();
     }
 
-    private List<School> selectPaging(long limit, School.Key lastSchool) {
-        String query =
-                "DECLARE $limit AS Uint64;\n" +
-                        "DECLARE $lastCity AS Text;\n" +
-                        "DECLARE $lastNumber AS Uint32;\n" +
-                        "\n" +
-                        "SELECT * FROM schools\n" +
-                        "WHERE (city, number) > ($lastCity, $lastNumber)\n" +
-                        "ORDER BY city, number\n" +
-                        "LIMIT $limit;";
-
-        /* In the query example shown above, the WHERE clause uses a tuple comparison to select the next set of rows.
-         Tuples are compared element by element from left to right, so the order of the fields in the tuple must
-         match the order of the fields in the primary key to avoid table full scan. */
-
-        Params params = Params.of(
-                "$limit", PrimitiveValue.newUint64(limit),
-                "$lastCity", PrimitiveValue.newText(lastSchool.getCity()),
-                "$lastNumber", PrimitiveValue.newUint32(lastSchool.getNumber()));
-
-        TxControl<?> txControl = TxControl.serializableRw().setCommitTx(true);
-
-        DataQueryResult result = retryCtx.supplyResult(session -> session.executeDataQuery(query, txControl, params))
-                .join()
-                .getValue();
-
-        ResultSetReader resultSet = result.getResultSet(0);
-        List<School> schools = new ArrayList<>(resultSet.getRowCount());
-
-        while (resultSet.next()) {
-            String city = resultSet.getColumn("city").getText();
-            int number = (int) resultSet.getColumn("number").getUint32();
-            String address = resultSet.getColumn("address").getText();
-            schools.add(new School(city, number, address));
-        }
-        return schools;
-    }
-
     @Override
     public void close() {
         tableClient.close();
@@ -0,0 +1,307 @@
+package tech.ydb.examples.pagination;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import tech.ydb.core.grpc.GrpcTransport;
+import tech.ydb.examples.App;
+import tech.ydb.examples.AppRunner;
+import tech.ydb.examples.mapping.RowMapper;
+import tech.ydb.examples.paging.KeysetPaginator;
+import tech.ydb.table.SessionRetryContext;
+import tech.ydb.table.TableClient;
+import tech.ydb.table.description.TableDescription;
+import tech.ydb.table.query.Params;
+import tech.ydb.table.result.ResultSetReader;
+import tech.ydb.table.settings.BulkUpsertSettings;
+import tech.ydb.table.settings.ExecuteScanQuerySettings;
+import tech.ydb.table.settings.ReadTableSettings;
+import tech.ydb.table.values.ListType;
+import tech.ydb.table.values.ListValue;
+import tech.ydb.table.values.PrimitiveType;
+import tech.ydb.table.values.PrimitiveValue;
+import tech.ydb.table.values.StructType;
+import tech.ydb.table.values.Value;
+
+/**
+ * Compares primitives for bulk reads of a whole table: keyset pagination with LIMIT at several page sizes, ordered
+ * and unordered ReadTable and scan query. Every method maps all rows of the table with the same row mapper, the
+ * table of results shows rows per second, client CPU time of the process and memory allocated by live threads.
+ * Threads of the SDK and gRPC which exit during a read are not counted, so the allocation is a lower bound.
+ * <p>
+ * The size of the table is set by the system property {@code rows}, 100000 by default.
+ */
+public class ReadBenchmark implements App {
+    private static final String TABLE_NAME = "read_benchmark";
+    private static final int DEFAULT_ROW_COUNT = 100_000;
+    private static final int BATCH_SIZE = 1000;
+    /** Data queries return at most 1000 rows, larger pages are truncated */
+    private static final int[] PAGE_SIZES = {10, 100, 1000};
+
+    private static final StructType ROW_TYPE = StructType.of(
+            "id", PrimitiveType.Uint64,
+            "payload", PrimitiveType.Text,
+            "value", PrimitiveType.Int64
+    );
+
+    private static final RowMapper<Row> ROW_MAPPER = RowMapper.builder(Row.class)
+            .column("id")
+            .column("payload")
+            .column("value")
+            .build();
+
+    /**
+     * Row of the benchmark table
+     */
+    public static final class Row {
+        private final long id;
+        private final String payload;
+        private final long value;
+
+        public Row(long id, String payload, long value) {
+            this.id = id;
+            this.payload = payload;
+            this.value = value;
+        }
+    }
+
+    private static final class Measurement {
+        private final String method;
+        private final long rows;
+        private final long wallNanos;
+        private final long cpuNanos;
+        private final long allocatedBytes;
+
+        private Measurement(String method, long rows, long wallNanos, long cpuNanos, long allocatedBytes) {
+            this.method = method;
+            this.rows = rows;
+            this.wallNanos = wallNanos;
+            this.cpuNanos = cpuNanos;
+            this.allocatedBytes = allocatedBytes;
+        }
+    }
+
+    /**
+     * Sink of read rows, its sum is checked after every read, which keeps the work of mapping from being optimized
+     * away and verifies that every row is read once
+     */
+    private static final class Checksum implements Consumer<Row> {
+        private long rows;
+        private long sum;
+
+        @Override
+        public void accept(Row row) {
+            rows++;
+            sum += row.id + row.value + row.payload.length();
+        }
+
+        private void reset() {
+            rows = 0;
+            sum = 0;
+        }
+    }
+
+    private final String tablePath;
+    private final int rowCount;
+    private final TableClient tableClient;
+    private final SessionRetryContext retryCtx;
+    private long expectedSum;
+
+    ReadBenchmark(GrpcTransport transport, String path, int rowCount) {
+        this.tablePath = path + "/" + TABLE_NAME;
+        this.rowCount = rowCount;
+        this.tableClient = TableClient.newClient(transport).build();
+        this.retryCtx = SessionRetryContext.create(tableClient).build();
+    }
+
+    public static void main(String[] args) {
+        int rowCount = Integer.getInteger("rows", DEFAULT_ROW_COUNT);
+        AppRunner.run("ReadBenchmark", (transport, path) -> new ReadBenchmark(transport, path, rowCount), args);
+    }
+
+    public static int test(String[] args, int rowCount) {
+        return AppRunner.safeRun("ReadBenchmark", (transport, path) -> new ReadBenchmark(transport, path, rowCount),
+                args);
+    }
+
+    @Override
+    public void run() {
+        TableDescription table = createTable();
+        try {
+            fillTable();
+            report(measureAll(table));
+        } finally {
+            retryCtx.supplyStatus(session -> session.dropTable(tablePath)).join();
+        }
+    }
+
+    private List<Measurement> measureAll(TableDescription table) {
+        List<Measurement> results = new ArrayList<>();
+        // the first pass warms up sessions, query caches and JIT, only the second one is reported
+        for (int pass = 0; pass < 2; pass++) {
+            results.clear();
+            for (int pageSize : PAGE_SIZES) {
+                results.add(measure("keyset LIMIT " + pageSize, sink -> readKeyset(table, pageSize, sink)));
+            }
+            results.add(measure("readTable ordered", sink -> readTable(true, sink)));
+            results.add(measure("readTable unordered", sink -> readTable(false, sink)));
+            results.add(measure("scan query", this::scanQuery));
+        }
+        return results;
+    }
+
+    private void report(List<Measurement> results) {
+        System.out.println("--[ Read benchmark, " + rowCount + " rows ]---------------------");
+        System.out.println(String.format("%-22s %12s %10s %10s %12s",
+                "method", "rows/s", "time, ms", "cpu, ms", "alloc, MB"));
+        for (Measurement result : results) {
+            double seconds = result.wallNanos / 1e9;
+            System.out.println(String.format("%-22s %12.0f %10d %10s %12s",
+                    result.method,
+                    result.rows / seconds,
+                    TimeUnit.NANOSECONDS.toMillis(result.wallNanos),
+                    result.cpuNanos < 0 ? "n/a" : String.valueOf(TimeUnit.NANOSECONDS.toMillis(result.cpuNanos)),
+                    result.allocatedBytes < 0 ? "n/a" : String.format("%.1f", result.allocatedBytes / 1048576.0)));
+        }
+    }
+
+    private TableDescription createTable() {
+        retryCtx.supplyStatus(session -> session.dropTable(tablePath)).join();
+
+        TableDescription table = TableDescription.newBuilder()
+                .addNullableColumn("id", PrimitiveType.Uint64)
+                .addNullableColumn("payload", PrimitiveType.Text)
+                .addNullableColumn("value", PrimitiveType.Int64)
+                .setPrimaryKey("id")
+                .build();
+
+        retryCtx.supplyStatus(session -> session.createTable(tablePath, table))
+                .join()
+                .expectSuccess("cannot create " + tablePath);
+        return table;
+    }
+
+    private void fillTable() {
+        expectedSum = 0;
+        ListType listType = ListType.of(ROW_TYPE);
+        for (int offset = 0; offset < rowCount; offset += BATCH_SIZE) {
+            List<Value<?>> batch = new ArrayList<>(BATCH_SIZE);
+            for (int id = offset; id < Math.min(offset + BATCH_SIZE, rowCount); id++) {
+                String payload = "payload of row " + id;
+                long value = id * 31L % 1000;
+                batch.add(ROW_TYPE.newValue(
+                        "id", PrimitiveValue.newUint64(id),
+                        "payload", PrimitiveValue.newText(payload),
+                        "value", PrimitiveValue.newInt64(value)));
+                expectedSum += id + value + payload.length();
+            }
+
+            ListValue rows = listType.newValue(batch);
+            retryCtx.supplyStatus(session -> session.executeBulkUpsert(tablePath, rows, new BulkUpsertSettings()))
+                    .join()
+                    .expectSuccess("bulk upsert to " + tablePath + " failed");
+        }
+    }
+
+    private void readKeyset(TableDescription table, int pageSize, Checksum sink) {
+        KeysetPaginator<Row> paginator = KeysetPaginator.builder(retryCtx, tablePath, table, ROW_MAPPER)
+                .pageSize(pageSize)
+                .build();
+        for (List<Row> page : paginator) {
+            page.forEach(sink);
+        }
+    }
+
+    private void readTable(boolean ordered, Checksum sink) {
+        ReadTableSettings settings = ReadTableSettings.newBuilder()
+                .orderedRead(ordered)
+                .columns("id", "payload", "value")
+                .build();
+        retryCtx.supplyStatus(session -> {
+            sink.reset();
+            return session.executeReadTable(tablePath, settings).start(part -> mapAll(part.getResultSetReader(), sink));
+        }).join().expectSuccess("readTable of " + tablePath + " failed");
+    }
+
+    private void scanQuery(Checksum sink) {
+        String query = "SELECT id, payload, value FROM `" + tablePath + "`;";
+        ExecuteScanQuerySettings settings = ExecuteScanQuerySettings.newBuilder().build();
+        retryCtx.supplyStatus(session -> {
+            sink.reset();
+            return session.executeScanQuery(query, Params.empty(), settings)
+                    .start(resultSet -> mapAll(resultSet, sink));
+        }).join().expectSuccess("scan query of " + tablePath + " failed");
+    }
+
+    private static void mapAll(ResultSetReader resultSet, Checksum sink) {
+        RowMapper<Row>.Bound mapper = ROW_MAPPER.bind(resultSet);
+        while (resultSet.next()) {
+            sink.accept(mapper.map());
+        }
+    }
+
+    private Measurement measure(String method, Consumer<Checksum> read) {
+        Checksum sink = new Checksum();
+        long cpuBefore = processCpuNanos();
+        long allocatedBefore = allocatedBytes();
+        long startedAt = System.nanoTime();
+
+        read.accept(sink);
+
+        long wallNanos = System.nanoTime() - startedAt;
+        long cpuAfter = processCpuNanos();
+        long allocatedAfter = allocatedBytes();
+        if (sink.rows != rowCount) {
+            throw new IllegalStateException(method + " read " + sink.rows + " rows instead of " + rowCount);
+        }
+        if (sink.sum != expectedSum) {
+            throw new IllegalStateException(method + " read checksum " + sink.sum + " instead of " + expectedSum);
+        }
+
+        return new Measurement(method, sink.rows, wallNanos,
+                cpuBefore < 0 || cpuAfter < 0 ? -1 : cpuAfter - cpuBefore,
+                allocatedBefore < 0 || allocatedAfter < 0 ? -1 : allocatedAfter - allocatedBefore);
+    }
+
+    /**
+     * CPU time of the whole process, reading is done by threads of the SDK and gRPC, not only the calling one
+     */
+    private static long processCpuNanos() {
+        java.lang.management.OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+        }
+        return -1;
+    }
+
+    /**
+     * Bytes allocated by all live threads, -1 if the JVM doesn't count them. Allocations of threads which have
+     * exited are lost, e.g. of pool threads of the SDK or gRPC ended by a keep-alive timeout during the read.
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        if (!allocations.isThreadAllocatedMemorySupported() || !allocations.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+
+        long total = 0;
+        for (long bytes : allocations.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            if (bytes > 0) {
+                total += bytes;
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public void close() {
+        tableClient.close();
+    }
+}
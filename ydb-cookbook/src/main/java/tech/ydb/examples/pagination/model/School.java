@@ -29,10 +29,6 @@ public class School {
         return address;
     }
 
-    public Key toKey() {
-        return new Key(city, number);
-    }
-
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -62,25 +58,4 @@ public class School {
             ", address='" + address + '\'' +
             '}';
     }
-
-    /**
-     * SCHOOL KEY
-     */
-    public static final class Key {
-        private final String city;
-        private final int number;
-
-        public Key(String city, int number) {
-            this.city = city;
-            this.number = number;
-        }
-
-        public String getCity() {
-            return city;
-        }
-
-        public int getNumber() {
-            return number;
-        }
-    }
 }
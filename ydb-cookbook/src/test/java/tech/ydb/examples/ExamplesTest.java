@@ -7,6 +7,7 @@ import org.junit.jupiter.api.extension.RegisterExtension;
 import tech.ydb.examples.batch_upload.BatchUpload;
 import tech.ydb.examples.bulk_upsert.BulkUpsert;
 import tech.ydb.examples.pagination.PaginationApp;
+import tech.ydb.examples.pagination.ReadBenchmark;
 import tech.ydb.test.junit5.YdbHelperExtension;
 
 /**
@@ -38,4 +39,9 @@ public class ExamplesTest {
     public void testPagination() {
         Assertions.assertEquals(0, PaginationApp.test(args(), "Pagination test"));
     }
+
+    @Test
+    public void testReadBenchmark() {
+        Assertions.assertEquals(0, ReadBenchmark.test(args(), 10_000), "Read benchmark test");
+    }
 }